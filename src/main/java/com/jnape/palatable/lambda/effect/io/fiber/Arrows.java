@@ -0,0 +1,47 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Arrays.copyOf;
+
+// Persistent, type-aligned sequence of arrows stored untyped in a shared, append-only array. Each version only reads
+// the prefix it was created with; snoc writes in place if it wins the next slot and copies otherwise.
+final class Arrows<A, B> {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Object[]      arrows;
+    private final int           size;
+    private final AtomicInteger claimed;
+
+    private Arrows(Object[] arrows, int size, AtomicInteger claimed) {
+        this.arrows  = arrows;
+        this.size    = size;
+        this.claimed = claimed;
+    }
+
+    <C> Arrows<A, C> snoc(Function<? super B, ? extends Fiber<C>> f) {
+        if (size < arrows.length && claimed.compareAndSet(size, size + 1)) {
+            arrows[size] = f;
+            return new Arrows<>(arrows, size + 1, claimed);
+        }
+        Object[] copy = copyOf(arrows, size << 1);
+        copy[size] = f;
+        return new Arrows<>(copy, size + 1, new AtomicInteger(size + 1));
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    Function<Object, ? extends Fiber<?>> arrow(int index) {
+        return (Function<Object, ? extends Fiber<?>>) arrows[index];
+    }
+
+    static <A, B> Arrows<A, B> arrows(Function<? super A, ? extends Fiber<B>> f) {
+        Object[] arrows = new Object[INITIAL_CAPACITY];
+        arrows[0] = f;
+        return new Arrows<>(arrows, 1, new AtomicInteger(1));
+    }
+}
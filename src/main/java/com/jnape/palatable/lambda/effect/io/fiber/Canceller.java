@@ -1,89 +1,228 @@
 package com.jnape.palatable.lambda.effect.io.fiber;
 
-import com.jnape.palatable.shoki.impl.HashSet;
-import com.jnape.palatable.shoki.impl.StrictQueue;
-
+import com.jnape.palatable.lambda.adt.Maybe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static com.jnape.palatable.lambda.effect.io.fiber.CancelState.fresh;
-import static com.jnape.palatable.shoki.impl.HashSet.hashSet;
-import static com.jnape.palatable.shoki.impl.StrictQueue.strictQueue;
+import static com.jnape.palatable.lambda.adt.Maybe.maybe;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 
+// Children and callbacks share one intrusive, Treiber-style list of registrations: registering is a single CAS on the
+// head, and cancelling swaps the head for a sentinel and walks what it took. Deregistering only flags the node; once
+// flagged nodes outnumber the live ones, whoever removed the last one sweeps them out, so removal is O(1) amortized.
+// A callback's node doubles as its deregistration token, so operators that finish normally can drop their callbacks
+// without allocating anything else.
 public final class Canceller {
 
-    private final Canceller                    parent;
-    private final AtomicReference<CancelState> stateRef;
+    private static final int          MIN_SWEEP_THRESHOLD = 64;
+    private static final int          CALLBACK_BATCH_SIZE = 1024;
+    private static final Registration CANCELLED           = new Registration(null, null, null);
+
+    private final Canceller                     parent;
+    private final Executor                      callbackExecutor;
+    private final Registration                  registration;
+    private final AtomicReference<Registration> head;
+    private final AtomicInteger                 removed;
+    private final AtomicBoolean                 sweeping;
+
+    private volatile int sweepThreshold;
+
+    private Canceller(Canceller parent, Executor callbackExecutor) {
+        this.parent           = parent;
+        this.callbackExecutor = callbackExecutor;
+        this.registration     = parent == null ? null : new Registration(parent, null, this);
+        this.head             = new AtomicReference<>();
+        this.removed          = new AtomicInteger(0);
+        this.sweeping         = new AtomicBoolean(false);
+        this.sweepThreshold   = MIN_SWEEP_THRESHOLD;
+    }
 
-    private Canceller(Canceller parent, AtomicReference<CancelState> stateRef) {
-        this.parent   = parent;
-        this.stateRef = stateRef;
+    // Returns a token that deregisters the callback when run, or nothing if this canceller was already cancelled (in
+    // which case the callback is not registered and will never run)
+    public Maybe<Runnable> onCancellation(Runnable callback) {
+        return maybe(registerCallback(callback));
     }
 
-    public boolean onCancellation(Runnable callback) {
-        return !stateRef.updateAndGet(cs -> cs.addCallback(callback)).isCancelled();
+    // onCancellation for the run loop, which would only unwrap the Maybe again: null if already cancelled
+    Runnable registerCallback(Runnable callback) {
+        Registration registration = new Registration(this, callback, null);
+        return register(registration) ? registration : null;
     }
 
+    // Walks the subtree breadth-first with an explicit queue, marking every canceller cancelled before running any
+    // callback (parents' before children's, oldest first), so deep trees can't overflow the stack. Past one batch, the
+    // remaining callbacks are split into batches and handed to the callback executor, so cancelling a race or parallel
+    // over many fibers doesn't stall the cancelling thread.
     public void cancel() {
-        CancelState cancelState = stateRef.getAndSet(CancelState.cancelled());
-        if (!cancelState.isCancelled()) {
-            if (parent != null)
-                parent.removeChild(this);
-
-            //todo: this will slow down cancel propagation -- consider relocating to shared FiberState or some such
-            cancelState.callbacks().forEach(c -> {try {c.run();} catch (Exception ignored) {}});
-            //todo: not stack safe, although it would have to be pretty deep...
-            cancelState.children().forEach(Canceller::cancel);
+        cancel(null);
+    }
+
+    // fiber, when present, is the one whose run loop is cancelling this (a race's winner, a parallel's failure), for
+    // the Cancellation event
+    void cancel(FiberEvents.Traced fiber) {
+        Registration registrations = head.getAndSet(CANCELLED);
+        if (registrations == CANCELLED)
+            return;
+        FiberEvents.Cancellation event = FiberEvents.cancelling(fiber);
+        if (parent != null)
+            parent.removeChild(this);
+
+        ArrayList<Runnable>      callbacks  = new ArrayList<>();
+        ArrayList<Registration>  claimed    = new ArrayList<>();
+        ArrayDeque<Registration> subtrees   = new ArrayDeque<>();
+        int                      cancellers = 1;
+        for (Registration taken = registrations; taken != null; taken = subtrees.poll()) {
+            for (Registration r = taken; r != null; r = r.next) {
+                if (r.claim())
+                    claimed.add(r);
+            }
+            for (int i = claimed.size() - 1; i >= 0; i--) {
+                Registration r = claimed.get(i);
+                if (r.callback != null) {
+                    callbacks.add(r.callback);
+                } else {
+                    Registration subtree = r.child.head.getAndSet(CANCELLED);
+                    if (subtree != CANCELLED) {
+                        cancellers++;
+                        if (subtree != null)
+                            subtrees.add(subtree);
+                    }
+                }
+            }
+            claimed.clear();
         }
+
+        int inline = callbacks.size();
+        if (callbackExecutor != null && inline > CALLBACK_BATCH_SIZE) {
+            for (int from = CALLBACK_BATCH_SIZE; from < inline; from += CALLBACK_BATCH_SIZE) {
+                List<Runnable> batch = callbacks.subList(from, min(inline, from + CALLBACK_BATCH_SIZE));
+                try {
+                    callbackExecutor.execute(() -> runAll(batch));
+                } catch (RejectedExecutionException rejected) {
+                    runAll(batch);
+                }
+            }
+            inline = CALLBACK_BATCH_SIZE;
+        }
+        runAll(callbacks.subList(0, inline));
+        if (event != null)
+            FiberEvents.cancelled(event, cancellers, callbacks.size());
     }
 
     public boolean cancelled() {
-        return stateRef.get().isCancelled();
+        return head.get() == CANCELLED;
     }
 
     public Canceller addChild() {
-        Canceller child = canceller(this);
-        return stateRef
-                       .updateAndGet(cs -> cs.addChild(child))
-                       .isCancelled()
-               ? this
-               : child;
+        Canceller child = new Canceller(this, callbackExecutor);
+        return register(child.registration) ? child : this;
     }
 
     public void removeChild(Canceller child) {
-        stateRef.updateAndGet(cs -> cs.removeChild(child));
+        if (child.parent == this)
+            child.registration.run();
     }
 
-    public static Canceller canceller() {
-        return canceller(null);
+    int registrations() {
+        int registrations = 0;
+        for (Registration r = head.get(); r != null && r != CANCELLED; r = r.next) {
+            registrations++;
+        }
+        return registrations;
     }
 
-    private static Canceller canceller(Canceller parent) {
-        return new Canceller(parent, new AtomicReference<>(fresh()));
+    private boolean register(Registration registration) {
+        Registration current;
+        do {
+            current = head.get();
+            if (current == CANCELLED)
+                return false;
+            registration.next = current;
+        } while (!head.compareAndSet(current, registration));
+        return true;
     }
-}
-
-record CancelState(boolean isCancelled, HashSet<Canceller> children, StrictQueue<Runnable> callbacks) {
 
-    private static final CancelState CANCELLED = new CancelState(true, hashSet(), strictQueue());
-    private static final CancelState FRESH     = new CancelState(false, hashSet(), strictQueue());
+    private void onRemoved() {
+        if (removed.incrementAndGet() >= sweepThreshold && sweeping.compareAndSet(false, true)) {
+            try {
+                sweep();
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
 
-    CancelState addCallback(Runnable callback) {
-        return isCancelled ? this : new CancelState(false, children, callbacks.snoc(callback));
+    // Only ever unlinks nodes behind the current head, so concurrent registrations, which only touch the head, and a
+    // concurrent cancel, which only reads, never lose a live node.
+    private void sweep() {
+        Registration previous = head.get();
+        if (previous == null || previous == CANCELLED)
+            return;
+        int live  = previous.live() ? 1 : 0;
+        int swept = 0;
+        for (Registration r = previous.next; r != null; r = r.next) {
+            if (r.live()) {
+                previous.next = r;
+                previous      = r;
+                live++;
+            } else {
+                swept++;
+            }
+        }
+        previous.next = null;
+        removed.addAndGet(-swept);
+        sweepThreshold = max(MIN_SWEEP_THRESHOLD, live);
     }
 
-    CancelState addChild(Canceller child) {
-        return isCancelled ? this : new CancelState(false, children.add(child), callbacks);
+    private static void runAll(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            try {callback.run();} catch (Exception ignored) {}
+        }
     }
 
-    CancelState removeChild(Canceller child) {
-        return new CancelState(isCancelled, children.remove(child), callbacks);
+    public static Canceller canceller() {
+        return canceller(null);
     }
 
-    public static CancelState fresh() {
-        return FRESH;
+    // Cancelling a tree with more than a batch of callbacks runs all but the first batch on callbackExecutor
+    public static Canceller canceller(Executor callbackExecutor) {
+        return new Canceller(null, callbackExecutor);
     }
 
-    public static CancelState cancelled() {
-        return CANCELLED;
+    private static final class Registration extends AtomicBoolean implements Runnable {
+        private final Canceller owner;
+        private final Runnable  callback;
+        private final Canceller child;
+
+        private volatile Registration next;
+
+        private Registration(Canceller owner, Runnable callback, Canceller child) {
+            super(true);
+            this.owner    = owner;
+            this.callback = callback;
+            this.child    = child;
+        }
+
+        @Override
+        public void run() {
+            if (claim())
+                owner.onRemoved();
+        }
+
+        private boolean live() {
+            return get();
+        }
+
+        private boolean claim() {
+            return compareAndSet(true, false);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.lang.Math.floorDiv;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// Deadlines are rounded up to the next multiple of the slack, and every delay landing on the same multiple shares one
+// scheduled wakeup. When it fires, the surviving tasks are grouped by executor and handed over as TimerBatches, so a
+// ForkJoinPool takes each group in one submission and spreads it across its workers. Cancelling only flags the entry;
+// it is dropped when its bucket fires.
+final class CoalescingTimer implements Timer {
+    private static final Executor INLINE = Runnable::run;
+    private static final Entry    FIRED  = new Entry(null, null);
+
+    private final ScheduledExecutorService        scheduledExecutorService;
+    private final long                            slackNanos;
+    private final ConcurrentHashMap<Long, Bucket> buckets;
+
+    private CoalescingTimer(ScheduledExecutorService scheduledExecutorService, long slackNanos) {
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.slackNanos               = slackNanos;
+        this.buckets                  = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Runnable delay(Runnable runnable, long delay, TimeUnit timeUnit) {
+        return delay(runnable, delay, timeUnit, INLINE);
+    }
+
+    @Override
+    public Runnable delay(Runnable runnable, long delay, TimeUnit timeUnit, Executor executor) {
+        Entry entry = new Entry(runnable, executor);
+        long  key   = floorDiv(nanoTime() + timeUnit.toNanos(delay) + slackNanos - 1, slackNanos);
+        while (!bucket(key).add(entry)) {
+            Thread.onSpinWait();
+        }
+        return entry;
+    }
+
+    private Bucket bucket(long key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            Bucket created = new Bucket(key);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+                scheduledExecutorService.schedule(created, key * slackNanos - nanoTime(), NANOSECONDS);
+            }
+        }
+        return bucket;
+    }
+
+    static CoalescingTimer coalescingTimer(ScheduledExecutorService scheduledExecutorService,
+                                           long slack, TimeUnit timeUnit) {
+        if (slack <= 0)
+            throw new IllegalArgumentException("slack must be positive");
+        return new CoalescingTimer(scheduledExecutorService, timeUnit.toNanos(slack));
+    }
+
+    private final class Bucket implements Runnable {
+        private final long                   key;
+        private final AtomicReference<Entry> head;
+
+        private Bucket(long key) {
+            this.key  = key;
+            this.head = new AtomicReference<>();
+        }
+
+        private boolean add(Entry entry) {
+            Entry current;
+            do {
+                current = head.get();
+                if (current == FIRED)
+                    return false;
+                entry.next = current;
+            } while (!head.compareAndSet(current, entry));
+            return true;
+        }
+
+        @Override
+        public void run() {
+            buckets.remove(key, this);
+            Entry entry    = head.getAndSet(FIRED);
+            Entry reversed = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.next = reversed;
+                reversed   = entry;
+                entry      = next;
+            }
+
+            ArrayList<TimerBatch> batches = new ArrayList<>(1);
+            for (entry = reversed; entry != null; entry = entry.next) {
+                if (!entry.cancelled)
+                    TimerBatch.add(batches, entry.executor, entry.task);
+            }
+            TimerBatch.submit(batches, null);
+        }
+    }
+
+    // Running an entry cancels it.
+    private static final class Entry implements Runnable {
+        private final Runnable task;
+        private final Executor executor;
+
+        private volatile boolean cancelled;
+        private          Entry   next;
+
+        private Entry(Runnable task, Executor executor) {
+            this.task     = task;
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Striped counters throughout, so concurrent workers reporting at once don't contend on a single cache line. Reads
+// are sums over the stripes: each is accurate on its own, but reading several isn't an atomic snapshot.
+public final class CountingMetrics implements Metrics {
+    private final LongAdder       fibersStarted     = new LongAdder();
+    private final LongAdder       fibersCompleted   = new LongAdder();
+    private final LongAdder       ticks             = new LongAdder();
+    private final LongAdder       reassociatedBinds = new LongAdder();
+    private final LongAdder       suspensions       = new LongAdder();
+    private final LongAdder       preemptions       = new LongAdder();
+    private final LongAdder       races             = new LongAdder();
+    private final LongAdder       racedFibers       = new LongAdder();
+    private final LongAccumulator largestRace       = new LongAccumulator(Math::max, 0);
+    private final LongAdder       parallels         = new LongAdder();
+    private final LongAdder       parallelFibers    = new LongAdder();
+    private final LongAccumulator largestParallel   = new LongAccumulator(Math::max, 0);
+    private final LongAdder       cancellations     = new LongAdder();
+    private final LongAdder       timersScheduled   = new LongAdder();
+    private final LongAdder       timersFired       = new LongAdder();
+    private final LongAdder       timersCancelled   = new LongAdder();
+
+    CountingMetrics() {
+    }
+
+    @Override
+    public void fiberStarted() {
+        fibersStarted.increment();
+    }
+
+    @Override
+    public void fiberCompleted() {
+        fibersCompleted.increment();
+    }
+
+    @Override
+    public void ticked(int ticks, int reassociatedBinds, int suspensions) {
+        this.ticks.add(ticks);
+        if (reassociatedBinds != 0)
+            this.reassociatedBinds.add(reassociatedBinds);
+        if (suspensions != 0)
+            this.suspensions.add(suspensions);
+    }
+
+    @Override
+    public void preempted() {
+        preemptions.increment();
+    }
+
+    @Override
+    public void raced(int fibers) {
+        races.increment();
+        racedFibers.add(fibers);
+        largestRace.accumulate(fibers);
+    }
+
+    @Override
+    public void parallelized(int fibers) {
+        parallels.increment();
+        parallelFibers.add(fibers);
+        largestParallel.accumulate(fibers);
+    }
+
+    @Override
+    public void cancelled() {
+        cancellations.increment();
+    }
+
+    @Override
+    public void timerScheduled() {
+        timersScheduled.increment();
+    }
+
+    @Override
+    public void timerFired() {
+        timersFired.increment();
+    }
+
+    @Override
+    public void timerCancelled() {
+        timersCancelled.increment();
+    }
+
+    // Fibers handed to the runtime that haven't completed yet; race and parallel branches aren't counted separately
+    public long inFlight() {
+        return fibersStarted.sum() - fibersCompleted.sum();
+    }
+
+    public long fibersStarted() {
+        return fibersStarted.sum();
+    }
+
+    public long fibersCompleted() {
+        return fibersCompleted.sum();
+    }
+
+    public long ticks() {
+        return ticks.sum();
+    }
+
+    public long reassociatedBinds() {
+        return reassociatedBinds.sum();
+    }
+
+    public long suspensions() {
+        return suspensions.sum();
+    }
+
+    public long preemptions() {
+        return preemptions.sum();
+    }
+
+    public long races() {
+        return races.sum();
+    }
+
+    public long racedFibers() {
+        return racedFibers.sum();
+    }
+
+    public long largestRace() {
+        return largestRace.get();
+    }
+
+    public long parallels() {
+        return parallels.sum();
+    }
+
+    public long parallelFibers() {
+        return parallelFibers.sum();
+    }
+
+    public long largestParallel() {
+        return largestParallel.get();
+    }
+
+    public long cancellations() {
+        return cancellations.sum();
+    }
+
+    public long timersScheduled() {
+        return timersScheduled.sum();
+    }
+
+    public long timersFired() {
+        return timersFired.sum();
+    }
+
+    public long timersCancelled() {
+        return timersCancelled.sum();
+    }
+}
@@ -3,45 +3,122 @@ package com.jnape.palatable.lambda.effect.io.fiber;
 import com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import static com.jnape.palatable.lambda.effect.io.fiber.VirtualThreadExecutors.virtualThreadPerTaskExecutor;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.VirtualThreads.ALL;
 import static java.lang.Runtime.getRuntime;
 import static java.lang.String.format;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static java.util.concurrent.ForkJoinPool.defaultForkJoinWorkerThreadFactory;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 
 public record Environment(Timer timer,
                           Executor defaultExecutor,
                           Executor blockingExecutor,
-                          Supplier<Canceller> cancellerFactory) {
+                          Supplier<Canceller> cancellerFactory,
+                          Metrics metrics) {
+
+    public Environment(Timer timer,
+                       Executor defaultExecutor,
+                       Executor blockingExecutor,
+                       Supplier<Canceller> cancellerFactory) {
+        this(timer, defaultExecutor, blockingExecutor, cancellerFactory, Metrics.noMetrics());
+    }
+
+    public Environment withMetrics(Metrics metrics) {
+        return new Environment(timer, defaultExecutor, blockingExecutor, cancellerFactory, metrics);
+    }
 
     public static Environment fromSettings(EnvironmentSettings environmentSettings) {
         boolean       interruptFuturesOnCancel = environmentSettings.interruptFuturesOnCancel();
         AtomicInteger threadCounter            = new AtomicInteger(1);
-        int           virtualThreads           = getRuntime().availableProcessors();
+        AtomicInteger blockingThreadCounter    = new AtomicInteger(1);
+        AtomicInteger tickerThreadCounter      = new AtomicInteger(1);
+        int           eventLoopThreads         = getRuntime().availableProcessors();
+        ThreadFactory timerThreadFactory       = r -> new Thread(r, "lambda-io-timer") {{
+            setDaemon(true);
+            setPriority(MAX_PRIORITY);
+        }};
+        Timer timer = switch (environmentSettings.timerStrategy()) {
+            case SCHEDULED_EXECUTOR -> Timer.timer(newSingleThreadScheduledExecutor(timerThreadFactory),
+                                                   interruptFuturesOnCancel);
+            case COALESCING -> Timer.coalescingTimer(newSingleThreadScheduledExecutor(timerThreadFactory),
+                                                     environmentSettings.timerSlackMicros(),
+                                                     MICROSECONDS);
+            case HASHED_WHEEL -> Timer.hashedWheelTimer(timerThreadFactory,
+                                                        environmentSettings.timerTickMicros(),
+                                                        MICROSECONDS);
+            case SHARDED -> Timer.shardedTimer(r -> new Thread(r, format("lambda-io-timer-%s",
+                                                                         tickerThreadCounter.getAndIncrement())) {{
+                                                   setDaemon(true);
+                                               }},
+                                               eventLoopThreads,
+                                               environmentSettings.timerTickMicros(),
+                                               MICROSECONDS);
+        };
+        // Either event loop's workers own the sharded timer's shards
+        ForkJoinWorkerThreadFactory eventLoopThreadFactory = timer instanceof ShardedTimer sharded
+                                                             ? sharded::newWorker
+                                                             : defaultForkJoinWorkerThreadFactory;
+        Consumer<Executor> onFiberSchedulerWorkerStart = timer instanceof ShardedTimer sharded
+                                                         ? sharded::claimShard
+                                                         : __ -> {};
+        Supplier<ExecutorService> eventLoop = switch (environmentSettings.eventLoop()) {
+            case FORK_JOIN_POOL -> () -> new ForkJoinPool(
+                    eventLoopThreads,
+                    pool -> {
+                        ForkJoinWorkerThread thread = eventLoopThreadFactory.newThread(pool);
+                        thread.setName(format("lambda-io-event-loop-[%s/%s]",
+                                              threadCounter.getAndIncrement(),
+                                              eventLoopThreads));
+                        return thread;
+                    },
+                    null, //todo: Global reporter?
+                    true);
+            case FIBER_SCHEDULER -> () -> FiberScheduler.fiberScheduler(eventLoopThreads, "lambda-io-event-loop-",
+                                                                        onFiberSchedulerWorkerStart);
+        };
+        Supplier<ExecutorService> blockingPool = () -> newCachedThreadPool(
+                r -> new Thread(r, format("lambda-io-blocking-%s", blockingThreadCounter.getAndIncrement())) {{
+                    setDaemon(true);
+                }});
+        // With ALL, blocking work shares the event loop's virtual threads, so Fiber.blocking never hops
+        Executor defaultExecutor = environmentSettings.virtualThreads() == ALL
+                                   ? virtualThreadPerTaskExecutor("lambda-io-event-loop-").orElseGet(eventLoop::get)
+                                   : eventLoop.get();
+        Executor blockingExecutor = switch (environmentSettings.virtualThreads()) {
+            case NONE -> blockingPool.get();
+            case BLOCKING -> virtualThreadPerTaskExecutor("lambda-io-blocking-").orElseGet(blockingPool::get);
+            case ALL -> defaultExecutor instanceof ForkJoinPool || defaultExecutor instanceof FiberScheduler
+                        ? blockingPool.get()
+                        : defaultExecutor;
+        };
         return new Environment(
-                Timer.timer(newSingleThreadScheduledExecutor(r -> new Thread(r) {{
-                                setDaemon(true);
-                                setPriority(MAX_PRIORITY);
-                            }}),
-                            interruptFuturesOnCancel),
-                new ForkJoinPool(
-                        virtualThreads,
-                        pool -> {
-                            ForkJoinWorkerThread thread = defaultForkJoinWorkerThreadFactory.newThread(pool);
-                            thread.setName(format("lambda-io-event-loop-[%s/%s]",
-                                                  threadCounter.getAndIncrement(),
-                                                  virtualThreads));
-                            return thread;
-                        },
-                        null, //todo: Global reporter?
-                        true),
-                newCachedThreadPool(/* todo: named threads */),
-                Canceller::canceller);
+                timer,
+                defaultExecutor,
+                blockingExecutor,
+                () -> Canceller.canceller(defaultExecutor));
+    }
+
+    // Every fiber, blocking work included, runs on virtual threads; requires JDK 21 or later
+    public static Environment virtualThreads(EnvironmentSettings environmentSettings) {
+        if (!VirtualThreadExecutors.supported())
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later");
+        return fromSettings(new EnvironmentSettings(environmentSettings.interruptFuturesOnCancel(),
+                                                    environmentSettings.timerStrategy(),
+                                                    environmentSettings.timerTickMicros(),
+                                                    environmentSettings.timerSlackMicros(),
+                                                    ALL,
+                                                    environmentSettings.eventLoop()));
     }
 
     public static Environment system() {
@@ -2,19 +2,27 @@ package com.jnape.palatable.lambda.effect.io.fiber;
 
 import com.jnape.palatable.lambda.adt.Unit;
 import com.jnape.palatable.lambda.effect.io.fiber.Result.Success;
+import com.jnape.palatable.lambda.functions.Fn2;
+import com.jnape.palatable.lambda.functions.Fn3;
+import com.jnape.palatable.lambda.functions.Fn4;
+import com.jnape.palatable.lambda.functions.Fn5;
+import com.jnape.palatable.lambda.functions.Fn6;
+import com.jnape.palatable.lambda.functions.Fn7;
+import com.jnape.palatable.lambda.functions.Fn8;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CancellationException;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 import java.util.function.Supplier;
 
 import static com.jnape.palatable.lambda.adt.Unit.UNIT;
+import static com.jnape.palatable.lambda.effect.io.fiber.Arrows.arrows;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.cancellation;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.failure;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.success;
@@ -30,9 +38,7 @@ public sealed interface Fiber<A> {
     }
 
     default A unsafeRunSync() {
-        Result<A> result = new CompletableFuture<Result<A>>() {{
-            unsafeRunAsync(this::complete);
-        }}.join();
+        Result<A> result = Runtime.JVM.get().runSync(this);
         if (result instanceof Success<A> success)
             return success.value();
         else if (result instanceof Result.Failure<A> failure)
@@ -42,23 +48,32 @@ public sealed interface Fiber<A> {
     }
 
     default <B> Fiber<B> bind(Function<? super A, ? extends Fiber<B>> fn) {
-        return new Bind<>(this, fn);
+        FiberTrace.callSite(fn);
+        return new Bind<>(this, arrows(fn));
     }
 
     static <A> Fiber<A> fiber(Consumer<? super Consumer<? super Result<A>>> k) {
+        FiberTrace.callSite(k);
         return new Suspension<>(k);
     }
 
     static <A> Fiber<A> fiber(Supplier<? extends A> task) {
-        return fiber(k -> {
-            Result<A> result;
-            try {
-                result = success(task.get());
-            } catch (Throwable t) {
-                result = failure(t);
-            }
-            k.accept(result);
-        });
+        FiberTrace.callSite(task);
+        return new Suspension<>(new Thunk<>(task));
+    }
+
+    // Runs on the runtime's blocking executor and resumes on the executor that was running the fiber; thunks can be
+    // treated this way by default with the TreatThunksAsBlocking runtime setting
+    static <A> Fiber<A> blocking(Fiber<A> fiber) {
+        return new Blocking<>(fiber);
+    }
+
+    static <A> Fiber<A> blocking(Supplier<? extends A> task) {
+        return blocking(fiber(task));
+    }
+
+    static Fiber<Unit> blocking(Runnable action) {
+        return blocking(fiber(action));
     }
 
     static <A> Fiber<A> result(Result<A> result) {
@@ -97,7 +112,86 @@ public sealed interface Fiber<A> {
     }
 
     static <A> Fiber<List<A>> parallel(List<Fiber<A>> fibers) {
-        return new Parallel<>(fibers, identity());
+        return new Parallel<>(fibers, Integer.MAX_VALUE, null, identity());
+    }
+
+    // Keeps at most maxConcurrency fibers in flight, starting the next one (in list order) as each succeeds
+    static <A> Fiber<List<A>> parallel(int maxConcurrency, List<Fiber<A>> fibers) {
+        return new Parallel<>(fibers, maxConcurrency, null, identity());
+    }
+
+    // Streams each result, with its index, to onResult as it arrives instead of collecting them, so wide fan-outs don't
+    // hold every result at once. onResult runs on whichever thread completed the fiber, possibly concurrently with
+    // itself; if it throws, the parallel fails with that exception.
+    static <A> Fiber<Unit> parallelForEach(List<Fiber<A>> fibers, ObjIntConsumer<? super A> onResult) {
+        return parallelForEach(Integer.MAX_VALUE, fibers, onResult);
+    }
+
+    static <A> Fiber<Unit> parallelForEach(int maxConcurrency, List<Fiber<A>> fibers,
+                                           ObjIntConsumer<? super A> onResult) {
+        return new Parallel<>(fibers, maxConcurrency, onResult, __ -> UNIT);
+    }
+
+    // Typed applicative combinators over Parallel: each result keeps its own type, and the fibers are held in an
+    // immutable List.of(...) rather than a varargs array
+    @SuppressWarnings("unchecked")
+    static <A, B, C> Fiber<C> zip(Fiber<A> fa, Fiber<B> fb, Fn2<? super A, ? super B, ? extends C> fn) {
+        return zipped(List.of(fa, fb), xs -> fn.apply((A) xs.get(0), (B) xs.get(1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D> Fiber<D> zip(Fiber<A> fa, Fiber<B> fb, Fiber<C> fc,
+                                     Fn3<? super A, ? super B, ? super C, ? extends D> fn) {
+        return zipped(List.of(fa, fb, fc), xs -> fn.apply((A) xs.get(0), (B) xs.get(1), (C) xs.get(2)));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D, E> Fiber<E> zip(Fiber<A> fa, Fiber<B> fb, Fiber<C> fc, Fiber<D> fd,
+                                        Fn4<? super A, ? super B, ? super C, ? super D, ? extends E> fn) {
+        return zipped(List.of(fa, fb, fc, fd),
+                      xs -> fn.apply((A) xs.get(0), (B) xs.get(1), (C) xs.get(2), (D) xs.get(3)));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D, E, F> Fiber<F> zip(Fiber<A> fa, Fiber<B> fb, Fiber<C> fc, Fiber<D> fd, Fiber<E> fe,
+                                           Fn5<? super A, ? super B, ? super C, ? super D, ? super E, ? extends F> fn) {
+        return zipped(List.of(fa, fb, fc, fd, fe),
+                      xs -> fn.apply((A) xs.get(0), (B) xs.get(1), (C) xs.get(2), (D) xs.get(3), (E) xs.get(4)));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D, E, F, G> Fiber<G> zip(Fiber<A> fa, Fiber<B> fb, Fiber<C> fc, Fiber<D> fd, Fiber<E> fe,
+                                              Fiber<F> ff,
+                                              Fn6<? super A, ? super B, ? super C, ? super D, ? super E, ? super F,
+                                                      ? extends G> fn) {
+        return zipped(List.of(fa, fb, fc, fd, fe, ff),
+                      xs -> fn.apply((A) xs.get(0), (B) xs.get(1), (C) xs.get(2), (D) xs.get(3), (E) xs.get(4),
+                                     (F) xs.get(5)));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D, E, F, G, H> Fiber<H> zip(Fiber<A> fa, Fiber<B> fb, Fiber<C> fc, Fiber<D> fd, Fiber<E> fe,
+                                                 Fiber<F> ff, Fiber<G> fg,
+                                                 Fn7<? super A, ? super B, ? super C, ? super D, ? super E,
+                                                         ? super F, ? super G, ? extends H> fn) {
+        return zipped(List.of(fa, fb, fc, fd, fe, ff, fg),
+                      xs -> fn.apply((A) xs.get(0), (B) xs.get(1), (C) xs.get(2), (D) xs.get(3), (E) xs.get(4),
+                                     (F) xs.get(5), (G) xs.get(6)));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D, E, F, G, H, I> Fiber<I> zip(Fiber<A> fa, Fiber<B> fb, Fiber<C> fc, Fiber<D> fd, Fiber<E> fe,
+                                                    Fiber<F> ff, Fiber<G> fg, Fiber<H> fh,
+                                                    Fn8<? super A, ? super B, ? super C, ? super D, ? super E,
+                                                            ? super F, ? super G, ? super H, ? extends I> fn) {
+        return zipped(List.of(fa, fb, fc, fd, fe, ff, fg, fh),
+                      xs -> fn.apply((A) xs.get(0), (B) xs.get(1), (C) xs.get(2), (D) xs.get(3), (E) xs.get(4),
+                                     (F) xs.get(5), (G) xs.get(6), (H) xs.get(7)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> Fiber<A> zipped(List<? extends Fiber<?>> fibers, Function<? super List<Object>, ? extends A> f) {
+        return new Parallel<>((List<Fiber<Object>>) (List<?>) fibers, Integer.MAX_VALUE, null, f);
     }
 
     //todo: is this sensible to expose?
@@ -129,6 +223,21 @@ public sealed interface Fiber<A> {
 record Suspension<A>(Consumer<? super Consumer<? super Result<A>>> k) implements Fiber<A> {
 }
 
+// The continuation fiber(Supplier) suspends with, distinguishable so that thunks can be treated as blocking
+record Thunk<A>(Supplier<? extends A> task) implements Consumer<Consumer<? super Result<A>>> {
+
+    @Override
+    public void accept(Consumer<? super Result<A>> k) {
+        Result<A> result;
+        try {
+            result = success(task.get());
+        } catch (Throwable t) {
+            result = failure(t);
+        }
+        k.accept(result);
+    }
+}
+
 record Value<A>(Result<A> result) implements Fiber<A> {
     static final Value<Unit> SUCCESS_UNIT = new Value<>(success());
     static final Value<?>    CANCELLED    = new Value<>(cancellation());
@@ -145,44 +254,30 @@ record Pin<A>(Fiber<A> fiber, Executor executor) implements Fiber<A> {
 record Forever<Z, A>(Fiber<Z> fiber) implements Fiber<A> {
 }
 
-record Delay<A>(Fiber<A> fiber, long delay, TimeUnit timeUnit) implements Fiber<A> {
+record Blocking<A>(Fiber<A> fiber) implements Fiber<A> {
 }
 
-record Bind<Z, A>(Fiber<Z> fiberZ, Function<? super Z, ? extends Fiber<A>> f) implements Fiber<A> {
-
-    private <R> R eliminate(Eliminator<A, R> eliminator) {
-        return eliminator.eliminate(fiberZ, f);
-    }
-
-    //todo: compare with efficiency of old lambda IO approach of an untyped list storing arrows
-    public Bind<?, A> rightAssociated() {
-        Bind<?, A> rightAssociated = this;
-        Bind.Eliminator<A, Bind<?, A>> eliminator = new Bind.Eliminator<>() {
-            @Override
-            public <Y> Bind<?, A> eliminate(Fiber<Y> fiber, Function<? super Y, ? extends Fiber<A>> f) {
-                return ((Bind<?, Y>) fiber).eliminate(new Bind.Eliminator<>() {
-                    @Override
-                    public <X> Bind<?, A> eliminate(Fiber<X> fiberX, Function<? super X, ? extends Fiber<Y>> g) {
-                        return new Bind<>(fiberX, y -> new Bind<>(g.apply(y), f));
-                    }
-                });
-            }
-        };
-
-        while (rightAssociated.fiberZ() instanceof Bind<?, ?>) {
-            rightAssociated = rightAssociated.eliminate(eliminator);
-        }
+record Delay<A>(Fiber<A> fiber, long delay, TimeUnit timeUnit) implements Fiber<A> {
+}
 
-        return rightAssociated;
-    }
+record Bind<Z, A>(Fiber<Z> fiberZ, Arrows<Z, A> arrows) implements Fiber<A> {
 
-    private interface Eliminator<A, R> {
-        <Z> R eliminate(Fiber<Z> fiberZ, Function<? super Z, ? extends Fiber<A>> f);
+    @Override
+    public <B> Fiber<B> bind(Function<? super A, ? extends Fiber<B>> fn) {
+        FiberTrace.callSite(fn);
+        return new Bind<>(fiberZ, arrows.snoc(fn));
     }
 }
 
 record Race<A>(List<Fiber<A>> fibers) implements Fiber<A> {
 }
 
-record Parallel<Z, A>(List<Fiber<Z>> fibers, Function<? super List<Z>, ? extends A> f) implements Fiber<A> {
+// onResult, when present, receives each result as it arrives and f is applied to null instead of the collected results
+record Parallel<Z, A>(List<Fiber<Z>> fibers, int maxConcurrency, ObjIntConsumer<? super Z> onResult,
+                      Function<? super List<Z>, ? extends A> f) implements Fiber<A> {
+
+    Parallel {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("maxConcurrency must be positive, but was " + maxConcurrency);
+    }
 }
\ No newline at end of file
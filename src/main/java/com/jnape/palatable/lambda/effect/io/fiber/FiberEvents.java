@@ -0,0 +1,195 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Flight recorder events for where fibers spend their time. All of them are disabled unless a recording turns them on
+// by name (e.g. lambda.io.FiberPreemption#enabled=true in a .jfc), and every factory here returns null while its event
+// is off, so a null check is all the run loop pays then. Handoff events begin when a fiber is handed to an executor and
+// are committed when it resumes there, so their duration is the time it spent queued. Fiber ids are only handed out
+// once an enabled event asks for one.
+final class FiberEvents {
+    private static final AtomicLong FIBER_IDS = new AtomicLong();
+
+    private static final FiberRun        FIBER_RUN        = new FiberRun();
+    private static final Preemption      PREEMPTION       = new Preemption();
+    private static final PinHop          PIN_HOP          = new PinHop();
+    private static final BlockingHandoff BLOCKING_HANDOFF = new BlockingHandoff();
+    private static final FiberDelay      FIBER_DELAY      = new FiberDelay();
+    private static final Cancellation    CANCELLATION     = new Cancellation();
+
+    private FiberEvents() {
+    }
+
+    static long nextFiberId() {
+        return FIBER_IDS.incrementAndGet();
+    }
+
+    static FiberRun fiberStarted(Traced fiber) {
+        if (!FIBER_RUN.isEnabled())
+            return null;
+        FiberRun event = new FiberRun();
+        event.fiberId = fiber.fiberId();
+        event.begin();
+        return event;
+    }
+
+    static void fiberCompleted(FiberRun event, Result<?> result) {
+        event.outcome = result instanceof Result.Success<?> ? "success"
+                        : result instanceof Result.Failure<?> ? "failure"
+                          : "cancellation";
+        event.commit();
+    }
+
+    static Handoff preempted(Traced fiber, int ticks, Executor executor) {
+        if (!PREEMPTION.isEnabled())
+            return null;
+        Preemption event = new Preemption();
+        event.ticks    = ticks;
+        event.executor = executor.getClass();
+        return begin(event, fiber);
+    }
+
+    static Handoff pinHop(Traced fiber, Executor from, Executor to) {
+        if (!PIN_HOP.isEnabled())
+            return null;
+        PinHop event = new PinHop();
+        event.from = from.getClass();
+        event.to   = to.getClass();
+        return begin(event, fiber);
+    }
+
+    static Handoff blockingHandoff(Traced fiber, Executor from, Executor to) {
+        if (!BLOCKING_HANDOFF.isEnabled())
+            return null;
+        BlockingHandoff event = new BlockingHandoff();
+        event.from = from.getClass();
+        event.to   = to.getClass();
+        return begin(event, fiber);
+    }
+
+    static FiberDelay delayScheduled(Traced fiber, long delay, TimeUnit timeUnit) {
+        if (!FIBER_DELAY.isEnabled())
+            return null;
+        FiberDelay event = new FiberDelay();
+        event.fiberId   = fiber.fiberId();
+        event.requested = timeUnit.toNanos(delay);
+        event.begin();
+        return event;
+    }
+
+    static void delayEnded(FiberDelay event, boolean cancelled) {
+        event.cancelled = cancelled;
+        event.commit();
+    }
+
+    static Cancellation cancelling(Traced fiber) {
+        if (!CANCELLATION.isEnabled())
+            return null;
+        Cancellation event = new Cancellation();
+        event.fiberId = fiber == null ? 0 : fiber.fiberId();
+        event.begin();
+        return event;
+    }
+
+    static void cancelled(Cancellation event, int cancellers, int callbacks) {
+        event.cancellers = cancellers;
+        event.callbacks  = callbacks;
+        event.commit();
+    }
+
+    private static Handoff begin(Handoff event, Traced fiber) {
+        event.fiberId = fiber.fiberId();
+        event.begin();
+        return event;
+    }
+
+    interface Traced {
+        long fiberId();
+    }
+
+    @Category({"Lambda IO", "Fibers"})
+    @StackTrace(false)
+    @Enabled(false)
+    abstract static class FiberEvent extends Event {
+        @Label("Fiber Id")
+        long fiberId;
+    }
+
+    abstract static class Handoff extends FiberEvent {
+    }
+
+    @Name("lambda.io.Fiber")
+    @Label("Fiber")
+    @Description("A fiber, from being handed to the runtime until it completed")
+    static final class FiberRun extends FiberEvent {
+        @Label("Outcome")
+        String outcome;
+    }
+
+    @Name("lambda.io.FiberPreemption")
+    @Label("Fiber Preemption")
+    @Description("A fiber that used up its tick budget, until it resumed")
+    static final class Preemption extends Handoff {
+        @Label("Ticks")
+        int ticks;
+
+        @Label("Executor")
+        Class<?> executor;
+    }
+
+    @Name("lambda.io.FiberPinHop")
+    @Label("Fiber Pin Hop")
+    @Description("A fiber moving onto a pinned executor, or back off of one, until it resumed there")
+    static final class PinHop extends Handoff {
+        @Label("From")
+        Class<?> from;
+
+        @Label("To")
+        Class<?> to;
+    }
+
+    @Name("lambda.io.FiberBlockingHandoff")
+    @Label("Fiber Blocking Handoff")
+    @Description("A fiber handed to the blocking executor, until it resumed there")
+    static final class BlockingHandoff extends Handoff {
+        @Label("From")
+        Class<?> from;
+
+        @Label("To")
+        Class<?> to;
+    }
+
+    @Name("lambda.io.FiberDelay")
+    @Label("Fiber Delay")
+    @Description("A delay, from being scheduled on the timer until it fired or was cancelled")
+    static final class FiberDelay extends FiberEvent {
+        @Label("Requested")
+        @Timespan
+        long requested;
+
+        @Label("Cancelled")
+        boolean cancelled;
+    }
+
+    @Name("lambda.io.Cancellation")
+    @Label("Cancellation")
+    @Description("A canceller cancelling its subtree; the fiber that triggered it, or 0 if none did")
+    static final class Cancellation extends FiberEvent {
+        @Label("Cancellers")
+        int cancellers;
+
+        @Label("Callbacks")
+        int callbacks;
+    }
+}
@@ -2,199 +2,706 @@ package com.jnape.palatable.lambda.effect.io.fiber;
 
 import com.jnape.palatable.lambda.effect.io.fiber.Result.Failure;
 import com.jnape.palatable.lambda.effect.io.fiber.Result.Success;
-import com.jnape.palatable.lambda.effect.io.fiber.Result.Unsuccessful;
 import com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings;
 
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ObjIntConsumer;
 import java.util.function.Supplier;
 
-import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.result;
-import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.cancellation;
-import static java.util.Arrays.asList;
+import static com.jnape.palatable.lambda.effect.io.fiber.Result.failure;
+import static com.jnape.palatable.lambda.effect.io.fiber.Result.success;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Arrays.copyOf;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 
 public final class FiberRunLoop implements Runtime {
 
+    private static final int                        MAX_LOCAL_RESUMPTIONS = 16;
+    private static final long                       MAX_LOCAL_WAIT_NANOS  = 1_000_000;
+    private static final int                        MIN_TICK_BUDGET       = 16;
+    private static final ThreadLocal<LocalRunQueue> LOCAL_RUN_QUEUE       = ThreadLocal.withInitial(LocalRunQueue::new);
+
     private final Supplier<Canceller> cancellerFactory;
     private final Executor            defaultExecutor;
+    private final Executor            blockingExecutor;
     private final Timer               timer;
     private final int                 maxTicksBeforePreemption;
+    private final int                 cancellationCheckInterval;
+    private final boolean             runSyncOnCallerThread;
+    private final boolean             treatThunksAsBlocking;
+    private final long                timeSliceNanos;
+    private final int                 traceSampleRate;
+    private final Metrics             metrics;
+    private final LongSupplier        clock;
 
-    private FiberRunLoop(Supplier<Canceller> cancellerFactory, Executor defaultExecutor, Timer timer,
-                         int maxTicksBeforePreemption) {
-        this.cancellerFactory         = cancellerFactory;
-        this.defaultExecutor          = defaultExecutor;
-        this.timer                    = timer;
-        this.maxTicksBeforePreemption = maxTicksBeforePreemption;
+    private FiberRunLoop(Supplier<Canceller> cancellerFactory, Executor defaultExecutor, Executor blockingExecutor,
+                         Timer timer, int maxTicksBeforePreemption, int cancellationCheckInterval,
+                         boolean runSyncOnCallerThread, boolean treatThunksAsBlocking, long timeSliceNanos,
+                         int traceSampleRate, Metrics metrics, LongSupplier clock) {
+        this.cancellerFactory          = cancellerFactory;
+        this.defaultExecutor           = defaultExecutor;
+        this.blockingExecutor          = blockingExecutor;
+        this.timer                     = timer;
+        this.maxTicksBeforePreemption  = maxTicksBeforePreemption;
+        this.cancellationCheckInterval = cancellationCheckInterval;
+        this.runSyncOnCallerThread     = runSyncOnCallerThread;
+        this.treatThunksAsBlocking     = treatThunksAsBlocking;
+        this.timeSliceNanos            = timeSliceNanos;
+        this.traceSampleRate           = traceSampleRate;
+        this.metrics                   = metrics;
+        this.clock                     = clock;
+        if (traceSampleRate > 0)
+            FiberTrace.captureCallSitesWhileReachable(this);
     }
 
     @Override
     public <A> void schedule(Fiber<A> fiber, Consumer<? super Result<A>> callback) {
         //todo: wrap callback.accept in a try/catch?
-        preempt(fiber, defaultExecutor, cancellerFactory.get(), Continuation.root(callback));
+        new FiberState(cancellerFactory.get(), started(callback)).preempt(fiber, null, defaultExecutor);
     }
 
-    private <A> void tick(Fiber<A> fiber, Executor executor, Canceller canceller, Continuation<A> continuation,
-                          int stackDepth) {
-        //todo: consider scheduling this check every n ticks to boost performance
-        if (canceller.cancelled()) {
-            continuation.accept(stackDepth, executor, cancellation());
-        } else {
-            if (stackDepth == maxTicksBeforePreemption) {
-                preempt(fiber, executor, canceller, continuation);
-                return;
-            }
+    @Override
+    public <A> Result<A> runSync(Fiber<A> fiber) {
+        if (!runSyncOnCallerThread)
+            return Runtime.super.runSync(fiber);
+
+        // Ticks on the calling thread, trampolining preemption in place, until the fiber reaches its first async
+        // boundary; from there on, it continues wherever that boundary resumes it (the executor a delay or pin hands it
+        // to, or the thread that completes a suspension) like any scheduled fiber, even if that is this thread again.
+        CompletableFuture<Result<A>> future = new CompletableFuture<>();
+        FiberState state = new FiberState(cancellerFactory.get(), started(future::complete));
+        state.caller   = Thread.currentThread();
+        state.fiber    = fiber;
+        state.executor = defaultExecutor;
+        do {
+            state.rescheduled = false;
+            state.run();
+        } while (state.rescheduled);
+        return future.join();
+    }
+
+    private void tick(Fiber<?> fiber, Result<?> result, Executor executor, FiberState state, int stackDepth) {
+        Canceller     canceller                   = state.canceller;
+        LocalRunQueue local                       = timeSliceNanos == 0 ? null : LOCAL_RUN_QUEUE.get();
+        int           ticksUntilCancellationCheck = 0;
+        int           checkpoint                  = local == null
+                                                    ? maxTicksBeforePreemption
+                                                    : nextClockCheck(local, stackDepth);
+        try {
+            while (true) {
+                // cancellation is always observed on entry (async boundaries and preemption) and before preempting;
+                // otherwise, a cancelled fiber runs at most cancellationCheckInterval - 1 more ticks before noticing
+                if (ticksUntilCancellationCheck-- == 0 || stackDepth >= checkpoint) {
+                    ticksUntilCancellationCheck = cancellationCheckInterval - 1;
+                    if (canceller.cancelled()) {
+                        state.observeCancellation();
+                        fiber  = null;
+                        result = cancellation();
+                    } else if (stackDepth >= checkpoint) {
+                        // maxTicksBeforePreemption still bounds the stack; the time slice can only end a run sooner
+                        if (stackDepth >= maxTicksBeforePreemption || sliceExpired(local, stackDepth)) {
+                            state.reschedule(fiber, result, executor, stackDepth);
+                            return;
+                        }
+                        checkpoint = nextClockCheck(local, stackDepth + 1);
+                    }
+                }
+                stackDepth++;
+                state.ticks++;
+
+                if (fiber instanceof Value<?> value) {
+                    fiber  = null;
+                    result = value.result();
+                }
 
-            //todo: compare with switch and enum
-            //todo: adding cases to this else-if switch eventually nukes optimized performance; why?
-            //      - branch predication?
-            //      - de-optimized byte code? (e.g. too many jumps, table switch for trivially few conditionals, etc.)
-            //      - code cache?
-            //      - something else?
-            if (fiber instanceof Value<A> value) {
-                continuation.accept(stackDepth, executor, value.result());
+                // Only the hot operators are dispatched inline, using exact-type checks against final records (a single
+                // klass compare each, independent of type profiles). Every other operator goes through dispatch(), so
+                // adding operators never grows this loop past C2's inlining budgets; see DispatchBenchmark.
+                if (fiber == null) {
+                    if (state.isEmpty()) {
+                        state.complete(stackDepth, executor, result);
+                        return;
+                    }
+                    Object frame = state.peek();
+                    if (frame instanceof Unpin unpin) {
+                        state.pop();
+                        state.handoff = FiberEvents.pinHop(state, executor, unpin.executor());
+                        state.preempt(null, result, unpin.executor());
+                        return;
+                    }
+                    fiber = unwind(result, frame, state);
+                }
+                else if (fiber instanceof Suspension<?> suspension) {
+                    suspend(suspension, executor, state, stackDepth);
+                    return;
+                } else if (fiber instanceof Bind<?, ?> bind) {
+                    state.binds++;
+                    state.push(bind.arrows());
+                    fiber = bind.fiberZ();
+                } else if (fiber instanceof Forever<?, ?> forever) {
+                    state.push(forever);
+                    fiber = forever.fiber();
+                } else {
+                    fiber = dispatch(fiber, executor, state, stackDepth);
+                    if (fiber == null)
+                        return;
+                }
             }
-            //todo: env variable to determine whether this is treated as blocking or non-blocking by default for upgrade path?
-            else if (fiber instanceof Suspension<A> suspension) {
-                //todo: should this be wrapped in try/catch and re-throw as critical error?
-                suspension.k().accept((Consumer<Result<A>>) res -> continuation.accept(stackDepth, executor, res));
-            } else if (fiber instanceof Forever<?, A> forever) {
-                forever(forever, executor, canceller, continuation, stackDepth);
-            } else if (fiber instanceof Bind<?, A> bind) {
-                bind(bind, executor, canceller, continuation, stackDepth);
-            } else if (fiber instanceof Pin<A> pin) {
-                pin(pin, executor, canceller, continuation, stackDepth);
-            } else if (fiber instanceof Delay<A> delay) {
-                delay(delay, executor, canceller, continuation);
-            } else if (fiber instanceof Race<A> race) {
-                race(race, executor, canceller, continuation);
-            } else if (fiber instanceof Parallel<?, A> parallel) {
-                parallel(parallel, executor, canceller, continuation);
+        } finally {
+            // stackDepth carries on across synchronous re-entries, so the deepest exit is the whole resumption's count
+            if (local != null)
+                local.reached(stackDepth);
+        }
+    }
+
+    // The clock is read about four times per expected slice, so a run overshoots its slice by about a quarter at most
+    // once the budget has adapted to the kind of work it's doing. Clock checks sit on multiples of the stride rather
+    // than a stride past wherever tick was entered, since every async resumption re-enters it.
+    private int nextClockCheck(LocalRunQueue local, int stackDepth) {
+        int stride = max(MIN_TICK_BUDGET, local.tickBudget >>> 2);
+        return min(maxTicksBeforePreemption, max(stride, (stackDepth + stride - 1) / stride * stride));
+    }
+
+    // Each clock read steers the budget toward however many ticks the slice so far (every fiber resumed in it, not
+    // just this one) suggests fit in a whole one. Threads not running a scheduled fiber (callbacks, runSync's caller)
+    // have no slice.
+    private boolean sliceExpired(LocalRunQueue local, int stackDepth) {
+        if (local.sliceStart == 0)
+            return false;
+        long elapsed = max(1, clock.getAsLong() - local.sliceStart);
+        long ticks   = local.ticks + stackDepth;
+        int  target  = (int) max(MIN_TICK_BUDGET,
+                                 min(maxTicksBeforePreemption, (double) ticks * timeSliceNanos / elapsed));
+        local.tickBudget = (local.tickBudget * 3 + target) >>> 2;
+        return elapsed >= timeSliceNanos;
+    }
+
+    // The calling thread's estimate
+    int tickBudget() {
+        return LOCAL_RUN_QUEUE.get().tickBudget;
+    }
+
+    private Fiber<?> dispatch(Fiber<?> fiber, Executor executor, FiberState state, int stackDepth) {
+        if (fiber instanceof Pin<?> pin) {
+            if (pin.executor() == executor && !state.onCaller())
+                return pin.fiber();
+            state.push(new Unpin(executor));
+            state.handoff = FiberEvents.pinHop(state, executor, pin.executor());
+            state.preempt(pin.fiber(), null, pin.executor());
+        } else if (fiber instanceof Blocking<?> blocking) {
+            if (executor == blockingExecutor || state.onCaller())
+                return blocking.fiber();
+            block(blocking.fiber(), executor, state);
+        } else if (fiber instanceof Delay<?> delay) {
+            delay(delay, executor, state);
+        } else if (fiber instanceof Race<?> race) {
+            return race(race, executor, state, stackDepth);
+        } else if (fiber instanceof Parallel<?, ?> parallel) {
+            parallel(parallel, executor, state, stackDepth);
+        }
+        return null;
+    }
+
+    private static Fiber<?> unwind(Result<?> result, Object frame, FiberState state) {
+        if (result instanceof Success<?> success) {
+            if (frame instanceof Arrows<?, ?> arrows) {
+                Function<Object, ? extends Fiber<?>> arrow = state.nextArrow(arrows);
+                if (state.trace != null)
+                    state.trace.record(arrow);
+                //todo: wrap apply() in a try/catch?
+                return arrow.apply(success.value());
             }
+            return ((Forever<?, ?>) frame).fiber();
         }
+        state.pop();
+        return null;
     }
 
-    private <A> void pin(Pin<A> pin, Executor executor, Canceller canceller, Continuation<A> continuation,
-                         int stackDepth) {
-        if (pin.executor() == executor) {
-            tick(pin.fiber(), executor, canceller, continuation, stackDepth + 1);
-        } else {
-            preempt(pin.fiber(), pin.executor(), canceller,
-                    (sd, __, res) -> preempt(result(res), executor, canceller, continuation));
+    private <A> void suspend(Suspension<A> suspension, Executor executor, FiberState state, int stackDepth) {
+        if (treatThunksAsBlocking && suspension.k() instanceof Thunk<?>
+                && executor != blockingExecutor && !state.onCaller()) {
+            block(suspension, executor, state);
+            return;
         }
+        state.executor   = executor;
+        state.stackDepth = stackDepth;
+        state.suspensions++;
+        if (state.trace != null)
+            state.trace.record(suspension.k());
+        //todo: should this be wrapped in try/catch and re-throw as critical error?
+        suspension.k().accept(state);
     }
 
-    private <A> void delay(Delay<A> delay, Executor executor, Canceller canceller, Continuation<A> continuation) {
+    // One handoff each way: the fiber runs on the blocking executor until it completes, and the Unpin frame resumes
+    // whatever follows it back on the executor it came from. The caller thread of runSync may block, so it never hops.
+    private void block(Fiber<?> fiber, Executor executor, FiberState state) {
+        state.push(new Unpin(executor));
+        state.handoff = FiberEvents.blockingHandoff(state, executor, blockingExecutor);
+        state.preempt(fiber, null, blockingExecutor);
+    }
+
+    private void delay(Delay<?> delay, Executor executor, FiberState state) {
         //todo: if delay is 0, just keep ticking
-        Runnable cancel = timer.delay(() -> preempt(delay.fiber(), executor, canceller, continuation),
-                                      delay.delay(), delay.timeUnit());
-        if (!canceller.onCancellation(cancel))
-            cancel.run();
+        Canceller canceller = state.canceller;
+        Sleep     sleep     = new Sleep(state, metrics);
+        sleep.deregistration = canceller.registerCallback(sleep::cancel);
+        if (sleep.deregistration == null) {
+            state.preempt(delay.fiber(), null, executor);
+            return;
+        }
+        state.fiber    = delay.fiber();
+        state.executor = executor;
+        state.flushMetrics();
+        sleep.event = FiberEvents.delayScheduled(state, delay.delay(), delay.timeUnit());
+        Runnable cancel = timer.delay(sleep, delay.delay(), delay.timeUnit(), executor);
+        sleep.cancel = cancel;
+        metrics.timerScheduled();
+        if (canceller.cancelled())
+            sleep.cancel();
     }
 
-    private <A> void race(Race<A> race, Executor executor, Canceller canceller, Continuation<A> continuation) {
-        Canceller     child  = canceller.addChild();
+    // A branch that is already a Value wins outright, without scheduling anything; otherwise the first branch runs
+    // inline on this thread, and the rest are only submitted if it didn't already win synchronously
+    private <A> Fiber<?> race(Race<A> race, Executor executor, FiberState state, int stackDepth) {
+        List<Fiber<A>> fibers = race.fibers();
+        metrics.raced(fibers.size());
+        for (Fiber<A> fiber : fibers) {
+            if (fiber instanceof Value<A>)
+                return fiber;
+        }
+
+        Canceller     child  = state.canceller.addChild();
         AtomicBoolean winner = new AtomicBoolean(true);
-        for (Fiber<A> fiber : race.fibers()) {
-            preempt(fiber, executor, child, (stackDepth, ex, res) -> {
-                if (winner.getAndSet(false)) {
-                    child.cancel();
-                    tick(result(res), ex, canceller, continuation, stackDepth + 1);
-                }
-            });
+        Continuation<A> k = (__, sd, ex, res) -> {
+            if (winner.getAndSet(false)) {
+                child.cancel(state);
+                tick(null, res, ex, state, sd + 1);
+            }
+        };
+        tick(fibers.get(0), null, executor, new FiberState(child, k, 0, state), stackDepth + 1);
+        for (int i = 1; i < fibers.size() && winner.get(); i++) {
+            new FiberState(child, k, i, state).preempt(fibers.get(i), null, executor);
         }
+        return null;
     }
 
-    private <X, A> void forever(Forever<X, A> forever, Executor executor, Canceller canceller,
-                                Continuation<A> continuation, int stackDepth) {
-        Fiber<X> fiber = forever.fiber();
-        tick(fiber, executor, canceller, new Continuation<>() {
-            @Override
-            public void accept(Integer sd, Executor ex, Result<X> res) {
-                if (res instanceof Success<?>)
-                    tick(fiber, ex, canceller, this, sd + 1);
-                else
-                    tick(result(((Unsuccessful<?>) res).contort()), ex, canceller, continuation, sd + 1);
-            }
-        }, stackDepth + 1);
-    }
-
-    private <A> void preempt(Fiber<A> fiber, Executor executor, Canceller canceller,
-                             Continuation<A> continuation) {
-        executor.execute(() -> tick(fiber, executor, canceller, continuation, 0));
-    }
-
-    private <A> void bind(Bind<?, A> bind, Executor executor, Canceller canceller,
-                          Continuation<A> continuation, int stackDepth) {
-        tick0((Bind<?, A>) (bind.fiberZ() instanceof Bind<?, ?> ? bind.rightAssociated() : bind),
-              executor, canceller, continuation, stackDepth);
-    }
-
-    private <X, A> void tick0(Bind<X, A> bind, Executor executor, Canceller canceller,
-                              Continuation<A> continuation, int stackDepth) {
-        //todo: tick0 here? we're already guaranteed to be rightAssoc...
-        tick(bind.fiberZ(), executor, canceller, (sd, ex, resX) ->
-                     tick(resX instanceof Success<X> success
-                          //todo: wrap apply() in a try/catch?
-                          ? bind.f().apply(success.value())
-                          : result(((Unsuccessful<X>) resX).contort()),
-                          ex, canceller, continuation, sd + 1),
-             stackDepth + 1);
-    }
-
-    private <X, A> void parallel(Parallel<X, A> parallel, Executor executor, Canceller canceller,
-                                 Continuation<A> continuation) {
-        List<Fiber<X>>                         fibers    = parallel.fibers();
-        Function<? super List<X>, ? extends A> f         = parallel.f();
-        int                                    n         = fibers.size();
-        Object[]                               results   = new Object[n];
-        AtomicInteger                          remaining = new AtomicInteger(n);
-
-        Canceller child = canceller.addChild();
-        for (int i = 0; i < n; i++) {
-            final int finalI = i;
-            preempt(fibers.get(finalI), executor, child, (sd, ex, result) -> {
-                if (result instanceof Success<X> success) {
-                    results[finalI] = success.value();
-                    if (remaining.decrementAndGet() == 0) {
-                        //todo: replace List with something with an immutable interface
-                        @SuppressWarnings("unchecked") List<X> list = (List<X>) asList(results);
-                        tick(succeeded(f.apply(list)), ex, canceller, continuation, sd + 1);
-                    }
-                } else if (remaining.getAndSet(-1) > 0) {
-                    child.cancel();
-                    tick(result(result instanceof Failure<X> failure
-                                ? failure.contort()
-                                : cancellation()),
-                         ex, canceller, continuation, sd + 1);
-                }
-            });
+    // Only the first branch that actually needs running is run inline; Value branches are joined in place
+    private <X, A> void parallel(Parallel<X, A> parallel, Executor executor, FiberState state, int stackDepth) {
+        ParallelJoin<X, A> join     = new ParallelJoin<>(parallel, executor, state);
+        metrics.parallelized(join.n);
+        int                inFlight = min(join.n, parallel.maxConcurrency());
+        boolean            inline   = true;
+        for (int i = 0; i < inFlight; i++) {
+            if (join.launch(i, inline, executor, stackDepth))
+                inline = false;
         }
     }
 
     public static FiberRunLoop fiberRunLoop(Environment environment, RuntimeSettings runtimeSettings) {
+        return fiberRunLoop(environment, runtimeSettings, java.lang.System::nanoTime);
+    }
+
+    // clock reads nanoseconds, like System.nanoTime; it's only read for time slices and the local run queue's wait
+    static FiberRunLoop fiberRunLoop(Environment environment, RuntimeSettings runtimeSettings, LongSupplier clock) {
         return new FiberRunLoop(environment.cancellerFactory(), environment.defaultExecutor(),
-                                environment.timer(), runtimeSettings.maxTicksBeforePreemption());
+                                environment.blockingExecutor(), environment.timer(),
+                                runtimeSettings.maxTicksBeforePreemption(), runtimeSettings.cancellationCheckInterval(),
+                                runtimeSettings.runSyncOnCallerThread(), runtimeSettings.treatThunksAsBlocking(),
+                                MICROSECONDS.toNanos(runtimeSettings.timeSliceMicros()),
+                                runtimeSettings.traceSampleRate(), environment.metrics(), clock);
     }
 
     public static FiberRunLoop system() {
         return System.LOADED;
     }
 
+    // A fiber handed to the runtime counts as in flight until just before its callback runs
+    private <A> Continuation<A> started(Consumer<? super Result<A>> callback) {
+        metrics.fiberStarted();
+        return (__, ___, ____, res) -> {
+            metrics.fiberCompleted();
+            callback.accept(res);
+        };
+    }
+
+    // branch is the index a parallel's child was started with, so one join can continue all of them
     private interface Continuation<A> {
-        void accept(Integer stackDepth, Executor executor, Result<A> result);
+        void accept(int branch, int stackDepth, Executor executor, Result<A> result);
+    }
+
+    // Frames are only allocated once something is pushed, so fibers that never bind (most parallel branches) skip them
+    private final class FiberState implements Runnable, Consumer<Result<?>>, FiberEvents.Traced {
+        private static final int      INITIAL_CAPACITY = 16;
+        private static final Object[] NO_FRAMES        = new Object[0];
+        private static final int[]    NO_CURSORS       = new int[0];
+
+        private final Canceller            canceller;
+        private final Continuation<Object> continuation;
+        private final int                  branch;
+        private final FiberTrace           trace;
+        private final FiberTrace           lineage;
+        private       Object[]             frames;
+        private       int[]                cursors;
+        private       int                  size;
+        private       Fiber<?>             fiber;
+        private       Result<?>            result;
+        private       Executor             executor;
+        private       int                  stackDepth;
+        private       Thread               caller;
+        private       boolean              rescheduled;
+        private       boolean              cancellationObserved;
+        private       int                  ticks;
+        private       int                  binds;
+        private       int                  suspensions;
+        private       long                 id;
+        private       FiberEvents.FiberRun lifetime;
+        private       FiberEvents.Handoff  handoff;
+
+        private FiberState(Canceller canceller, Continuation<?> continuation) {
+            this(canceller, continuation, 0, null);
+        }
+
+        // lineage is the trace of the nearest traced fiber among this one and the ones that started it
+        @SuppressWarnings("unchecked")
+        private FiberState(Canceller canceller, Continuation<?> continuation, int branch, FiberState parent) {
+            this.canceller    = canceller;
+            this.continuation = (Continuation<Object>) continuation;
+            this.branch       = branch;
+            this.frames       = NO_FRAMES;
+            this.cursors      = NO_CURSORS;
+            this.size         = 0;
+            this.lifetime     = FiberEvents.fiberStarted(this);
+            this.trace        = FiberTrace.sample(traceSampleRate, parent == null ? null : parent.lineage);
+            this.lineage      = trace != null ? trace : parent == null ? null : parent.lineage;
+        }
+
+        // The outermost run on a thread drains the fibers that exhausted their tick budget while it ran, then hands
+        // anything left after MAX_LOCAL_RESUMPTIONS, or once the time slice is up (without one, once fibers have waited
+        // in the queue for MAX_LOCAL_WAIT_NANOS), back to the executor so the rest of the pool's work gets a turn
+        @Override
+        public void run() {
+            LocalRunQueue local = LOCAL_RUN_QUEUE.get();
+            if (local.executor != null || onCaller()) {
+                resume();
+                return;
+            }
+            local.executor   = executor;
+            local.sliceStart = timeSliceNanos == 0 ? 0 : clock.getAsLong();
+            local.ticks      = 0;
+            local.reached    = 0;
+            try {
+                resume();
+                FiberState next;
+                int        resumptions = 0;
+                while (resumptions++ < MAX_LOCAL_RESUMPTIONS && !local.queue.isEmpty() && withinSlice(local)
+                        && (next = local.queue.poll()) != null) {
+                    local.ticks   += local.reached;
+                    local.reached  = 0;
+                    next.resume();
+                }
+            } finally {
+                local.executor   = null;
+                local.sliceStart = 0;
+                FiberState next;
+                while ((next = local.queue.poll()) != null) {
+                    next.executor.execute(next);
+                }
+            }
+            timer.pollExpired();
+        }
+
+        @Override
+        public void accept(Result<?> result) {
+            tick(null, result, executor, this, stackDepth);
+        }
+
+        // The first handoff ends runSync's hold on the caller thread
+        private void preempt(Fiber<?> fiber, Result<?> result, Executor executor) {
+            flushMetrics();
+            this.caller   = null;
+            this.fiber    = fiber;
+            this.result   = result;
+            this.executor = executor;
+            executor.execute(this);
+        }
+
+        private boolean withinSlice(LocalRunQueue local) {
+            return timeSliceNanos == 0
+                   ? clock.getAsLong() - local.queuedSince < MAX_LOCAL_WAIT_NANOS
+                   : clock.getAsLong() - local.sliceStart < timeSliceNanos;
+        }
 
-        static <A> Continuation<A> root(Consumer<? super Result<A>> k) {
-            return (__, ___, res) -> k.accept(res);
+        private void resume() {
+            Fiber<?>            fiber   = this.fiber;
+            Result<?>           result  = this.result;
+            FiberEvents.Handoff handoff = this.handoff;
+            this.fiber   = null;
+            this.result  = null;
+            this.handoff = null;
+            if (handoff != null)
+                handoff.commit();
+            tick(fiber, result, executor, this, 0);
+        }
+
+        // Out of budget but staying on the same executor: if that executor is what's running this thread, queue
+        // locally rather than paying for a full submission. A ForkJoinPool's own worker forks onto its deque instead,
+        // which costs about as little and leaves the fiber for other workers to steal if this one gets stuck.
+        private void reschedule(Fiber<?> fiber, Result<?> result, Executor executor, int stackDepth) {
+            metrics.preempted();
+            handoff = FiberEvents.preempted(this, stackDepth, executor);
+            if (onCaller()) {
+                this.fiber       = fiber;
+                this.result      = result;
+                this.executor    = executor;
+                this.rescheduled = true;
+                return;
+            }
+            LocalRunQueue local = LOCAL_RUN_QUEUE.get();
+            if (local.executor == executor) {
+                flushMetrics();
+                this.fiber    = fiber;
+                this.result   = result;
+                this.executor = executor;
+                if (Thread.currentThread() instanceof ForkJoinWorkerThread worker && worker.getPool() == executor) {
+                    ForkJoinTask.adapt(this).fork();
+                    return;
+                }
+                if (timeSliceNanos == 0 && local.queue.isEmpty())
+                    local.queuedSince = clock.getAsLong();
+                local.queue.add(this);
+            } else {
+                preempt(fiber, result, executor);
+            }
+        }
+
+        private boolean onCaller() {
+            return caller == Thread.currentThread();
+        }
+
+        @Override
+        public long fiberId() {
+            if (id == 0)
+                id = FiberEvents.nextFiberId();
+            return id;
+        }
+
+        // Reported before the fiber can be picked up by another thread, so these plain fields are only ever written by
+        // whichever thread is currently running it
+        private void flushMetrics() {
+            if (ticks == 0)
+                return;
+            metrics.ticked(ticks, binds, suspensions);
+            ticks       = 0;
+            binds       = 0;
+            suspensions = 0;
+        }
+
+        private void observeCancellation() {
+            if (!cancellationObserved) {
+                cancellationObserved = true;
+                metrics.cancelled();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(int stackDepth, Executor executor, Result<?> result) {
+            flushMetrics();
+            if (lifetime != null)
+                FiberEvents.fiberCompleted(lifetime, result);
+            if (trace != null && result instanceof Failure<?> failure)
+                trace.attachTo(failure.reason());
+            continuation.accept(branch, stackDepth, executor, (Result<Object>) result);
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void push(Object frame) {
+            if (size == frames.length) {
+                int capacity = max(INITIAL_CAPACITY, size << 1);
+                frames  = copyOf(frames, capacity);
+                cursors = copyOf(cursors, capacity);
+            }
+            frames[size]    = frame;
+            cursors[size++] = 0;
+        }
+
+        private Object peek() {
+            return frames[size - 1];
+        }
+
+        private void pop() {
+            frames[--size] = null;
+        }
+
+        private Function<Object, ? extends Fiber<?>> nextArrow(Arrows<?, ?> arrows) {
+            int cursor = cursors[size - 1]++;
+            if (cursor + 1 == arrows.size())
+                pop();
+            return arrows.arrow(cursor);
+        }
+    }
+
+    // Shared by every child of one parallel: collects results in order (or streams them to onResult as they arrive,
+    // without holding any), fails fast through the child canceller, and, when bounded, starts the next pending child
+    // (inline, on the thread that finished) each time one succeeds. It is its own join counter (children yet to
+    // succeed, or -1 once one hasn't) and every child's continuation, so that small fan-outs like zip allocate just
+    // this, the results array and a frameless state per child; the cursor over pending children only exists when
+    // bounded.
+    private final class ParallelJoin<X, A> extends AtomicInteger implements Continuation<X> {
+        private final List<Fiber<X>>                         fibers;
+        private final Function<? super List<X>, ? extends A> f;
+        private final ObjIntConsumer<? super X>              onResult;
+        private final Executor                               executor;
+        private final FiberState                             state;
+        private final Canceller                              child;
+        private final int                                    n;
+        private final boolean                                bounded;
+        private final Object[]                               results;
+        private final AtomicInteger                          next;
+
+        private ParallelJoin(Parallel<X, A> parallel, Executor executor, FiberState state) {
+            this.fibers    = parallel.fibers();
+            this.f         = parallel.f();
+            this.onResult  = parallel.onResult();
+            this.executor  = executor;
+            this.state     = state;
+            this.child     = state.canceller.addChild();
+            this.n         = fibers.size();
+            this.bounded   = parallel.maxConcurrency() < n;
+            this.results   = onResult == null ? new Object[n] : null;
+            this.next      = bounded ? new AtomicInteger(parallel.maxConcurrency()) : null;
+            set(n);
+        }
+
+        // Starts fibers[i], running it inline if asked to and otherwise submitting it; a Value is joined in place and,
+        // when bounded, frees its slot for the next pending fiber. Returns whether a fiber was run inline.
+        private boolean launch(int i, boolean inline, Executor ex, int sd) {
+            while (i < n && get() > 0) {
+                Fiber<X> fiber = fibers.get(i);
+                if (fiber instanceof Value<X> value) {
+                    if (!join(i, value.result(), ex, sd) || !bounded)
+                        return false;
+                    i = next.getAndIncrement();
+                } else {
+                    if (inline)
+                        tick(fiber, null, executor, new FiberState(child, this, i, state), sd + 1);
+                    else
+                        new FiberState(child, this, i, state).preempt(fiber, null, executor);
+                    return inline;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void accept(int i, int csd, Executor cex, Result<X> result) {
+            if (join(i, result, cex, csd) && bounded)
+                launch(next.getAndIncrement(), cex == executor, cex, csd + 1);
+        }
+
+        // Returns whether the parallel is still waiting on other fibers after this one succeeded
+        private boolean join(int i, Result<X> result, Executor ex, int sd) {
+            if (result instanceof Success<X> success) {
+                if (onResult == null) {
+                    results[i] = success.value();
+                } else {
+                    try {
+                        onResult.accept(success.value(), i);
+                    } catch (Throwable t) {
+                        return join(i, failure(t), ex, sd);
+                    }
+                }
+                if (decrementAndGet() > 0)
+                    return true;
+                state.canceller.removeChild(child);
+                tick(null, success(f.apply(results == null ? null : new ResultList<>(results))), ex, state, sd + 1);
+            } else if (getAndSet(-1) > 0) {
+                child.cancel(state);
+                tick(null, result instanceof Failure<X> failure
+                           ? failure.contort()
+                           : cancellation(),
+                     ex, state, sd + 1);
+            }
+            return false;
+        }
+    }
+
+    private record Unpin(Executor executor) {
+    }
+
+    // A pending delay: registered with the canceller before the timer is armed (so a cancel can never slip in between),
+    // and deregistered as soon as the timer fires, so long-running loops over delays don't accumulate dead callbacks.
+    // Firing and cancelling can race (and cancelling can happen twice, from the canceller's callback and from delay's
+    // recheck), so only whichever claims the sleep first counts it and ends its FiberDelay event; a late firing still
+    // resumes the fiber, which then observes the cancellation
+    private static final class Sleep extends AtomicBoolean implements Runnable {
+        private final    FiberState             state;
+        private final    Metrics                metrics;
+        private          Runnable               deregistration;
+        private          FiberEvents.FiberDelay event;
+        private volatile Runnable               cancel;
+
+        private Sleep(FiberState state, Metrics metrics) {
+            this.state   = state;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            if (compareAndSet(false, true)) {
+                metrics.timerFired();
+                if (event != null)
+                    FiberEvents.delayEnded(event, false);
+            }
+            deregistration.run();
+            state.run();
+        }
+
+        private void cancel() {
+            Runnable cancel = this.cancel;
+            if (cancel != null && compareAndSet(false, true)) {
+                cancel.run();
+                metrics.timerCancelled();
+                if (event != null)
+                    FiberEvents.delayEnded(event, true);
+            }
         }
     }
 
     private static final class System {
         private static final FiberRunLoop LOADED = fiberRunLoop(Environment.system(), RuntimeSettings.system());
     }
+
+    // Per thread: the executor whose task is currently running here (null when none is), when that task started (0
+    // when time slicing is off), the fibers that ran out of budget on it in the meantime and (without slicing) since
+    // when some have been waiting, and (when slicing) the ticks run by the fibers already resumed in it and by the one
+    // resumed now. The tick budget, how many ticks are expected to fit in one slice, is kept here too, so each worker
+    // adapts to its own work without writing to an estimate the others share.
+    private static final class LocalRunQueue {
+        private final ArrayDeque<FiberRunLoop.FiberState> queue      = new ArrayDeque<>();
+        private       int                                 tickBudget = MIN_TICK_BUDGET;
+        private       Executor                            executor;
+        private       long                                sliceStart;
+        private       long                                queuedSince;
+        private       long                                ticks;
+        private       int                                 reached;
+
+        private void reached(int stackDepth) {
+            reached = max(reached, stackDepth);
+        }
+    }
 }
@@ -0,0 +1,413 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.locks.LockSupport.park;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static java.util.concurrent.locks.LockSupport.unpark;
+
+// Work-stealing executor shaped for fibers rather than general fork/join tasks: runnables are queued as-is (no task
+// adaptation), and each worker keeps a "next task" slot for whatever it just woke, so a fiber resumed by the one running
+// now continues on the same, cache-warm thread. Beyond the slot, every worker owns a bounded FIFO ring that others steal
+// half of at a time; submissions from outside the pool, and local overflow, go through a shared injection queue. Idle
+// workers spin adaptively (longer after spins that found work, shorter after ones that didn't) before parking. The slot
+// is only kept from thieves while its owner makes progress: a worker parking while some slot is filled marks it with
+// the task its owner is on, parks for SLOT_GRACE_NANOS at most, and takes it if the owner is still on that task
+// (blocked, or just running long) by then.
+public final class FiberScheduler extends AbstractExecutorService {
+    private static final int CAPACITY             = 256;
+    private static final int MASK                 = CAPACITY - 1;
+    private static final int MAX_LIFO_POLLS       = 3;
+    private static final int GLOBAL_POLL_INTERVAL = 61;
+    private static final int MIN_SPINS            = 4;
+    private static final int MAX_SPINS            = 64;
+
+    private static final long SLOT_GRACE_NANOS = 1_000_000;
+
+    private final Worker[]                        workers;
+    private final ConcurrentLinkedQueue<Runnable> injected;
+    private final AtomicInteger                   searching;
+    private final AtomicInteger                   idle;
+    private final AtomicInteger                   watching;
+    private final Consumer<? super FiberScheduler> onWorkerStart;
+
+    private volatile int state;
+
+    private FiberScheduler(int parallelism, String namePrefix, Consumer<? super FiberScheduler> onWorkerStart) {
+        this.workers       = new Worker[parallelism];
+        this.injected      = new ConcurrentLinkedQueue<>();
+        this.searching     = new AtomicInteger(0);
+        this.idle          = new AtomicInteger(0);
+        this.watching      = new AtomicInteger(0);
+        this.onWorkerStart = onWorkerStart;
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(this, i, namePrefix + (i + 1));
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (state != RUNNING)
+            throw new RejectedExecutionException("FiberScheduler has been shut down");
+        if (Thread.currentThread() instanceof Worker worker && worker.scheduler == this) {
+            Runnable displaced = worker.slot.getAndSet(task);
+            if (displaced == null) {
+                // someone has to be watching the slot in case this worker gets stuck before taking it
+                if (watching.get() == 0)
+                    notifyIdle();
+                return;
+            }
+            worker.push(displaced);
+        } else {
+            injected.offer(task);
+        }
+        notifyIdle();
+    }
+
+    @Override
+    public void shutdown() {
+        if (state == RUNNING)
+            state = SHUTDOWN;
+        wakeAll();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        state = STOPPED;
+        wakeAll();
+        List<Runnable> pending = new ArrayList<>();
+        for (Worker worker : workers) {
+            worker.drainTo(pending);
+        }
+        Runnable task;
+        while ((task = injected.poll()) != null) {
+            pending.add(task);
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (Worker worker : workers) {
+            if (worker.isAlive())
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = nanoTime() + unit.toNanos(timeout);
+        for (Worker worker : workers) {
+            long remaining = deadline - nanoTime();
+            if (remaining <= 0)
+                return isTerminated();
+            TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+        }
+        return isTerminated();
+    }
+
+    public int parallelism() {
+        return workers.length;
+    }
+
+    // Wakes one parked worker to come steal, unless some worker is already out looking for work
+    private void notifyIdle() {
+        if (idle.get() == 0 || searching.get() > 0)
+            return;
+        for (Worker worker : workers) {
+            if (worker.parked.get() && worker.wake())
+                return;
+        }
+    }
+
+    private void wakeAll() {
+        for (Worker worker : workers) {
+            worker.wake();
+            unpark(worker);
+        }
+    }
+
+    private boolean hasStealableWork() {
+        if (!injected.isEmpty())
+            return true;
+        for (Worker worker : workers) {
+            if (worker.size() > 0)
+                return true;
+        }
+        return false;
+    }
+
+    public static FiberScheduler fiberScheduler(int parallelism, String namePrefix) {
+        return fiberScheduler(parallelism, namePrefix, __ -> {});
+    }
+
+    // onWorkerStart runs on each worker thread before it takes any work, e.g. to give it a ShardedTimer shard
+    static FiberScheduler fiberScheduler(int parallelism, String namePrefix,
+                                         Consumer<? super FiberScheduler> onWorkerStart) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive, but was " + parallelism);
+        return new FiberScheduler(parallelism, namePrefix, onWorkerStart);
+    }
+
+    private static final int RUNNING  = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOPPED  = 2;
+
+    private static final class Worker extends Thread {
+        private final FiberScheduler                 scheduler;
+        private final int                            id;
+        private final AtomicReferenceArray<Runnable> ring;
+        private final AtomicInteger                  head;
+        private final AtomicBoolean                  parked;
+        private final AtomicReference<Runnable>      slot;
+        private final AtomicInteger                  runs;
+
+        private volatile int  tail;
+        private volatile long slotMark;
+        private          int  lifoPolls;
+        private          int  ticks;
+        private          int  spins;
+
+        private Worker(FiberScheduler scheduler, int id, String name) {
+            super(name);
+            this.scheduler = scheduler;
+            this.id        = id;
+            this.ring      = new AtomicReferenceArray<>(CAPACITY);
+            this.head      = new AtomicInteger(0);
+            this.parked    = new AtomicBoolean(false);
+            this.slot      = new AtomicReference<>();
+            this.runs      = new AtomicInteger(0);
+            this.spins     = MIN_SPINS;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            scheduler.onWorkerStart.accept(scheduler);
+            while (scheduler.state != STOPPED) {
+                Runnable task = next();
+                if (task == null && (task = search()) == null) {
+                    if (scheduler.state != RUNNING)
+                        return;
+                    parkUntilNotified();
+                    continue;
+                }
+                runs.lazySet(runs.get() + 1);
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    getUncaughtExceptionHandler().uncaughtException(this, t);
+                }
+            }
+        }
+
+        // The slot is taken first, but only a few times in a row, so a pair of fibers waking each other can't starve
+        // the ring; the injection queue is polled first every so often for the same reason
+        private Runnable next() {
+            Runnable task;
+            if (++ticks % GLOBAL_POLL_INTERVAL == 0 && (task = scheduler.injected.poll()) != null)
+                return task;
+            if (slot.get() != null && (task = slot.getAndSet(null)) != null) {
+                if (lifoPolls++ < MAX_LIFO_POLLS)
+                    return task;
+                push(task);
+            }
+            lifoPolls = 0;
+            if ((task = pop()) != null)
+                return task;
+            return scheduler.injected.poll();
+        }
+
+        private Runnable search() {
+            scheduler.searching.incrementAndGet();
+            try {
+                for (int spin = 0; spin < spins; spin++) {
+                    Runnable task = steal();
+                    if (task == null)
+                        task = scheduler.injected.poll();
+                    if (task != null) {
+                        spins = min(MAX_SPINS, spins << 1);
+                        return task;
+                    }
+                    Thread.onSpinWait();
+                }
+                spins = max(MIN_SPINS, spins >> 1);
+                return stealStuckSlot();
+            } finally {
+                // the last searcher to find work hands the search off, in case there's more where that came from
+                if (scheduler.searching.decrementAndGet() == 0 && size() > 0)
+                    scheduler.notifyIdle();
+            }
+        }
+
+        private Runnable steal() {
+            Worker[] workers = scheduler.workers;
+            int      start   = ThreadLocalRandom.current().nextInt(workers.length);
+            for (int i = 0; i < workers.length; i++) {
+                Worker victim = workers[(start + i) % workers.length];
+                if (victim != this) {
+                    Runnable task = victim.stealHalfInto(this);
+                    if (task != null)
+                        return task;
+                }
+            }
+            return null;
+        }
+
+        // Takes a slot this worker marked before it last parked, if its owner hasn't started another task since
+        private Runnable stealStuckSlot() {
+            for (Worker victim : scheduler.workers) {
+                Runnable task = victim.slot.get();
+                if (task != null && victim != this && victim.slotMark == mark(victim)
+                        && victim.slot.compareAndSet(task, null))
+                    return task;
+            }
+            return null;
+        }
+
+        // Returns whether any other worker's slot was filled (and is now marked as seen by this worker)
+        private boolean watchSlots() {
+            boolean watched = false;
+            for (Worker victim : scheduler.workers) {
+                if (victim != this && victim.slot.get() != null) {
+                    victim.slotMark = mark(victim);
+                    watched         = true;
+                }
+            }
+            return watched;
+        }
+
+        private long mark(Worker victim) {
+            return (long) victim.runs.get() << 32 | id;
+        }
+
+        // Registers as parked before the final check for work, and submitters read the parked count after publishing
+        // theirs, so one of the two always sees the other. Filling an empty slot notifies the same way while nobody is
+        // watching, so a filled slot always has a watcher or a worker about to look for one.
+        private void parkUntilNotified() {
+            scheduler.idle.incrementAndGet();
+            parked.set(true);
+            if (scheduler.hasStealableWork() || scheduler.state != RUNNING) {
+                wake();
+                return;
+            }
+            if (watchSlots()) {
+                scheduler.watching.incrementAndGet();
+                parkNanos(this, SLOT_GRACE_NANOS);
+                scheduler.watching.decrementAndGet();
+            } else {
+                while (parked.get() && scheduler.state == RUNNING) {
+                    park(this);
+                }
+            }
+            wake();
+        }
+
+        private boolean wake() {
+            if (!parked.compareAndSet(true, false))
+                return false;
+            scheduler.idle.decrementAndGet();
+            unpark(this);
+            return true;
+        }
+
+        private int size() {
+            return tail - head.get();
+        }
+
+        // Owner only; on overflow, half of the ring moves to the injection queue to make room
+        private void push(Runnable task) {
+            while (true) {
+                int t = tail;
+                int h = head.get();
+                if (t - h < CAPACITY) {
+                    ring.lazySet(t & MASK, task);
+                    tail = t + 1;
+                    return;
+                }
+                int half = CAPACITY / 2;
+                List<Runnable> overflow = new ArrayList<>(half);
+                for (int i = 0; i < half; i++) {
+                    overflow.add(ring.get((h + i) & MASK));
+                }
+                if (head.compareAndSet(h, h + half))
+                    scheduler.injected.addAll(overflow);
+            }
+        }
+
+        // Owner only, oldest first; races thieves on head
+        private Runnable pop() {
+            while (true) {
+                int h = head.get();
+                if (h == tail)
+                    return null;
+                Runnable task = ring.get(h & MASK);
+                if (head.compareAndSet(h, h + 1))
+                    return task;
+            }
+        }
+
+        // Once stopped, whatever this worker hasn't started is claimed the way a thief would, so nothing runs twice
+        private void drainTo(List<Runnable> pending) {
+            while (true) {
+                int h = head.get();
+                if (h == tail)
+                    break;
+                Runnable task = ring.get(h & MASK);
+                if (head.compareAndSet(h, h + 1))
+                    pending.add(task);
+            }
+            Runnable task = slot.getAndSet(null);
+            if (task != null)
+                pending.add(task);
+        }
+
+        // Claims the older half of this ring for thief: the tasks are copied into thief's ring before claiming (the
+        // owner never overwrites a slot until head has passed it, so a successful claim means the copies are intact),
+        // and only published there once claimed. The newest stolen task is returned to run immediately.
+        private Runnable stealHalfInto(Worker thief) {
+            while (true) {
+                int h         = head.get();
+                int available = tail - h;
+                if (available <= 0)
+                    return null;
+                int free = CAPACITY - thief.size();
+                int n    = min(available - available / 2, free);
+                if (n <= 0)
+                    return null;
+                int t = thief.tail;
+                for (int i = 0; i < n; i++) {
+                    thief.ring.lazySet((t + i) & MASK, ring.get((h + i) & MASK));
+                }
+                if (head.compareAndSet(h, h + n)) {
+                    Runnable task = thief.ring.get((t + n - 1) & MASK);
+                    thief.tail = t + n - 1;
+                    return task;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.StackWalker.getInstance;
+
+// Async stack traces: a traced fiber keeps the classes of the last FRAMES functions it applied (bind arrows and
+// suspensions) in a ring, and when it fails, they're attached to the failure as a suppressed AsyncStackTrace, most
+// recent first. The line each function came from is looked up by its class: while any run loop that traces (sampled or
+// not) is reachable, constructing a bind or fiber walks the stack the first time each lambda class is seen and
+// remembers the first frame outside this package's operators. Constructing a fiber doesn't say which run loop will run
+// it, so that's as narrow as capturing can be scoped; once the last such run loop is collected, constructing is back to
+// a single read. A class constructed while nothing traced falls back to a frame naming the class that declared it.
+final class FiberTrace {
+    private static final int         FRAMES    = 32;
+    private static final int         MASK      = FRAMES - 1;
+    private static final Set<String> OPERATORS = Set.of(FiberTrace.class.getName(), Fiber.class.getName(),
+                                                        Bind.class.getName());
+
+    private static final ClassValue<CallSite> CALL_SITES = new ClassValue<>() {
+        @Override
+        protected CallSite computeValue(Class<?> type) {
+            return new CallSite();
+        }
+    };
+
+    private static final AtomicInteger TRACING_RUN_LOOPS = new AtomicInteger(0);
+
+    private final FiberTrace parent;
+    private final Class<?>[] ring;
+    private       int        cursor;
+
+    private FiberTrace(FiberTrace parent) {
+        this.parent = parent;
+        this.ring   = new Class<?>[FRAMES];
+    }
+
+    void record(Object function) {
+        ring[cursor++ & MASK] = function instanceof Thunk<?> thunk ? thunk.task().getClass() : function.getClass();
+    }
+
+    // A failure propagating through parents that are also traced keeps the trace of the fiber it started in. A
+    // Throwable can't drop a suppressed exception, so one that's reused (a shared or static instance) keeps a single
+    // AsyncStackTrace, holding the trace of the latest failure it ended rather than the first's for good.
+    void attachTo(Throwable reason) {
+        for (Throwable suppressed : reason.getSuppressed()) {
+            if (suppressed instanceof AsyncStackTrace asyncStackTrace) {
+                asyncStackTrace.reattach(this);
+                return;
+            }
+        }
+        reason.addSuppressed(new AsyncStackTrace(this));
+    }
+
+    private boolean descendsFrom(FiberTrace ancestor) {
+        for (FiberTrace trace = this; trace != null; trace = trace.parent) {
+            if (trace == ancestor)
+                return true;
+        }
+        return false;
+    }
+
+    private StackTraceElement[] frames() {
+        List<StackTraceElement> frames = new ArrayList<>(FRAMES);
+        for (int i = 1; i <= FRAMES && i <= cursor; i++) {
+            Class<?> type = ring[(cursor - i) & MASK];
+            if (!isOperator(type))
+                frames.add(CALL_SITES.get(type).resolve(type));
+        }
+        return frames.toArray(new StackTraceElement[0]);
+    }
+
+    static void captureCallSitesWhileReachable(Object runLoop) {
+        TRACING_RUN_LOOPS.incrementAndGet();
+        Release.CLEANER.register(runLoop, TRACING_RUN_LOOPS::decrementAndGet);
+    }
+
+    static boolean capturingCallSites() {
+        return TRACING_RUN_LOOPS.get() != 0;
+    }
+
+    static void callSite(Object function) {
+        if (capturingCallSites())
+            capture(function.getClass());
+    }
+
+    private static void capture(Class<?> type) {
+        CallSite callSite = CALL_SITES.get(type);
+        if (callSite.element == null && !isOperator(type))
+            callSite.element = getInstance().walk(frames -> frames
+                    .filter(frame -> !OPERATORS.contains(frame.getClassName()))
+                    .findFirst()
+                    .map(StackWalker.StackFrame::toStackTraceElement)
+                    .orElse(null));
+    }
+
+    // 1 in sampleRate fibers, or none when it's 0; parent is the nearest traced fiber that started this one's trace
+    static FiberTrace sample(int sampleRate, FiberTrace parent) {
+        if (sampleRate == 0 || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0))
+            return null;
+        return new FiberTrace(parent);
+    }
+
+    // Lambdas declared by the operators themselves (fiber(Runnable), zip, ...) are shared by every caller, so they
+    // say nothing about where a fiber came from
+    private static boolean isOperator(Class<?> type) {
+        String name   = type.getName();
+        int    lambda = name.indexOf("$$Lambda");
+        return OPERATORS.contains(lambda == -1 ? name : name.substring(0, lambda));
+    }
+
+    private static final class CallSite {
+        private volatile StackTraceElement element;
+
+        private StackTraceElement resolve(Class<?> type) {
+            StackTraceElement element = this.element;
+            if (element != null)
+                return element;
+            String name   = type.getName();
+            int    lambda = name.indexOf("$$Lambda");
+            return new StackTraceElement(lambda == -1 ? name : name.substring(0, lambda), "lambda", null, -1);
+        }
+    }
+
+    // Only started by the first run loop that traces
+    private static final class Release {
+        private static final Cleaner CLEANER = Cleaner.create();
+    }
+
+    static final class AsyncStackTrace extends Throwable {
+        private FiberTrace owner;
+
+        private AsyncStackTrace(FiberTrace owner) {
+            super("fiber call sites, most recent first", null, false, true);
+            this.owner = owner;
+            setStackTrace(owner.frames());
+        }
+
+        private synchronized void reattach(FiberTrace trace) {
+            if (!owner.descendsFrom(trace)) {
+                owner = trace;
+                setStackTrace(trace.frames());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.locks.LockSupport.park;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static java.util.concurrent.locks.LockSupport.unpark;
+
+// A single worker thread advances the wheel once per tick and parks while it is empty. Timeouts expiring on the same
+// tick are handed to their executor as one TimerBatch.
+final class HashedWheelTimer implements Timer {
+    private static final Executor INLINE = Runnable::run;
+
+    private final ThreadFactory         threadFactory;
+    private final TimingWheel           wheel;
+    private final long                  startTime;
+    private final AtomicBoolean         started;
+    private final ArrayList<TimerBatch> batches;
+
+    private volatile Thread  worker;
+    private volatile boolean idle;
+
+    private HashedWheelTimer(ThreadFactory threadFactory, TimingWheel wheel) {
+        this.threadFactory = threadFactory;
+        this.wheel         = wheel;
+        this.startTime     = nanoTime();
+        this.started       = new AtomicBoolean(false);
+        this.batches       = new ArrayList<>();
+    }
+
+    @Override
+    public Runnable delay(Runnable runnable, long delay, TimeUnit timeUnit) {
+        return delay(runnable, delay, timeUnit, INLINE);
+    }
+
+    @Override
+    public Runnable delay(Runnable runnable, long delay, TimeUnit timeUnit, Executor executor) {
+        Runnable cancel = wheel.schedule(runnable, executor, nanoTime() - startTime + timeUnit.toNanos(delay));
+        if (worker == null && started.compareAndSet(false, true)) {
+            Thread thread = threadFactory.newThread(this::run);
+            worker = thread;
+            thread.start();
+        } else if (idle) {
+            unpark(worker);
+        }
+        return cancel;
+    }
+
+    private void run() {
+        while (true) {
+            wheel.advance(nanoTime() - startTime, batches);
+            TimerBatch.submit(batches, null);
+            batches.clear();
+            if (wheel.idle()) {
+                idle = true;
+                if (wheel.idle())
+                    park(this);
+                idle = false;
+            } else {
+                parkNanos(this, wheel.nextTick() - (nanoTime() - startTime));
+            }
+        }
+    }
+
+    static HashedWheelTimer hashedWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit timeUnit,
+                                             int wheelSize) {
+        return new HashedWheelTimer(threadFactory, new TimingWheel(timeUnit.toNanos(tickDuration), wheelSize));
+    }
+}
@@ -0,0 +1,49 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+// Callbacks from the run loop; every method defaults to a no-op, so an implementation only overrides what it records.
+// They're called from any thread. Per-tick counts are accumulated on the fiber and reported in batches, when it's
+// preempted, starts a delay, or completes, so the hot path never writes to anything shared.
+public interface Metrics {
+
+    default void fiberStarted() {
+    }
+
+    default void fiberCompleted() {
+    }
+
+    default void ticked(int ticks, int reassociatedBinds, int suspensions) {
+    }
+
+    default void preempted() {
+    }
+
+    default void raced(int fibers) {
+    }
+
+    default void parallelized(int fibers) {
+    }
+
+    default void cancelled() {
+    }
+
+    default void timerScheduled() {
+    }
+
+    default void timerFired() {
+    }
+
+    default void timerCancelled() {
+    }
+
+    static Metrics noMetrics() {
+        return NoMetrics.INSTANCE;
+    }
+
+    static CountingMetrics countingMetrics() {
+        return new CountingMetrics();
+    }
+}
+
+enum NoMetrics implements Metrics {
+    INSTANCE
+}
@@ -0,0 +1,25 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+// Read-only, random-access view over a parallel's results array, handed to user code without copying. Only the run
+// loop holds the array, and it stops writing to it before the view is published.
+final class ResultList<A> extends AbstractList<A> implements RandomAccess {
+    private final Object[] results;
+
+    ResultList(Object[] results) {
+        this.results = results;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public A get(int index) {
+        return (A) results[index];
+    }
+
+    @Override
+    public int size() {
+        return results.length;
+    }
+}
@@ -2,6 +2,7 @@ package com.jnape.palatable.lambda.effect.io.fiber;
 
 import com.jnape.palatable.lambda.adt.Maybe;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -11,6 +12,12 @@ public interface Runtime {
 
     <A> void schedule(Fiber<A> fiber, Consumer<? super Result<A>> callback);
 
+    default <A> Result<A> runSync(Fiber<A> fiber) {
+        return new CompletableFuture<Result<A>>() {{
+            schedule(fiber, this::complete);
+        }}.join();
+    }
+
     final class JVM {
         private static final AtomicReference<Runtime> GLOBAL = new AtomicReference<>();
 
@@ -0,0 +1,182 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.locks.LockSupport.park;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static java.util.concurrent.locks.LockSupport.unpark;
+
+// Every event-loop worker owns a wheel that its delays land on, and drains it between fibers, running whatever expired
+// for its own pool in place. Delays from any other thread land on a random shard. A ticker thread drains any shard that
+// is still due a tick after it should have expired (its worker idle, or busy in one long task), handing those expirations
+// to the executor in batches. Workers only read the clock when their shard has something scheduled. ForkJoinPool workers
+// come from newWorker; any other event loop's workers each claim a shard when they start.
+final class ShardedTimer implements Timer {
+    private static final Executor INLINE = Runnable::run;
+
+    private final ThreadFactory      tickerThreadFactory;
+    private final Shard[]            shards;
+    private final long               tickNanos;
+    private final long               startTime;
+    private final AtomicInteger      assigned;
+    private final AtomicBoolean      started;
+    private final ThreadLocal<Claim> claims;
+
+    private volatile Thread  ticker;
+    private volatile boolean idle;
+    private volatile boolean claimed;
+
+    private ShardedTimer(ThreadFactory tickerThreadFactory, Shard[] shards, long tickNanos) {
+        this.tickerThreadFactory = tickerThreadFactory;
+        this.shards              = shards;
+        this.tickNanos           = tickNanos;
+        this.startTime           = nanoTime();
+        this.assigned            = new AtomicInteger(0);
+        this.started             = new AtomicBoolean(false);
+        this.claims              = new ThreadLocal<>();
+    }
+
+    @Override
+    public Runnable delay(Runnable runnable, long delay, TimeUnit timeUnit) {
+        return delay(runnable, delay, timeUnit, INLINE);
+    }
+
+    @Override
+    public Runnable delay(Runnable runnable, long delay, TimeUnit timeUnit, Executor executor) {
+        Claim claim = claim();
+        Shard shard = claim != null ? claim.shard() : shards[ThreadLocalRandom.current().nextInt(shards.length)];
+        Runnable cancel = shard.wheel.schedule(runnable, executor, nanoTime() - startTime + timeUnit.toNanos(delay));
+        if (ticker == null && started.compareAndSet(false, true)) {
+            Thread thread = tickerThreadFactory.newThread(this::tick);
+            ticker = thread;
+            thread.start();
+        } else if (idle) {
+            unpark(ticker);
+        }
+        return cancel;
+    }
+
+    @Override
+    public void pollExpired() {
+        Claim claim = claim();
+        if (claim != null && claim.shard().scheduled())
+            claim.shard().drain(nanoTime() - startTime, claim.pool());
+    }
+
+    ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        return new Worker(pool, this, nextShard());
+    }
+
+    // Called on a worker thread of pool as it starts
+    void claimShard(Executor pool) {
+        claims.set(new Claim(nextShard(), pool));
+        claimed = true;
+    }
+
+    private Shard nextShard() {
+        return shards[Math.floorMod(assigned.getAndIncrement(), shards.length)];
+    }
+
+    private Claim claim() {
+        if (Thread.currentThread() instanceof Worker worker)
+            return worker.timer == this ? worker.claim : null;
+        return claimed ? claims.get() : null;
+    }
+
+    private void tick() {
+        while (true) {
+            // owners get a tick's grace to drain their own shard before the ticker takes over
+            long nextTick = Long.MAX_VALUE;
+            for (Shard shard : shards) {
+                shard.drain(nanoTime() - startTime - tickNanos, null);
+                if (shard.scheduled())
+                    nextTick = Math.min(nextTick, shard.nextTick + tickNanos);
+            }
+            if (nextTick == Long.MAX_VALUE) {
+                idle = true;
+                if (allIdle())
+                    park(this);
+                idle = false;
+            } else {
+                parkNanos(this, nextTick - (nanoTime() - startTime));
+            }
+        }
+    }
+
+    private boolean allIdle() {
+        for (Shard shard : shards) {
+            if (shard.scheduled())
+                return false;
+        }
+        return true;
+    }
+
+    static ShardedTimer shardedTimer(ThreadFactory tickerThreadFactory, int shards, long tickDuration,
+                                     TimeUnit timeUnit, int wheelSize) {
+        if (shards <= 0)
+            throw new IllegalArgumentException("shards must be positive");
+        long    tickNanos = timeUnit.toNanos(tickDuration);
+        Shard[] wheels    = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            wheels[i] = new Shard(new TimingWheel(tickNanos, wheelSize));
+        }
+        return new ShardedTimer(tickerThreadFactory, wheels, tickNanos);
+    }
+
+    private static final class Shard {
+        private final TimingWheel           wheel;
+        private final AtomicBoolean         draining;
+        private final ArrayList<TimerBatch> batches;
+
+        private volatile boolean idle;
+        private volatile long    nextTick;
+
+        private Shard(TimingWheel wheel) {
+            this.wheel    = wheel;
+            this.draining = new AtomicBoolean(false);
+            this.batches  = new ArrayList<>();
+            this.idle     = true;
+        }
+
+        private boolean scheduled() {
+            return !idle || wheel.pending();
+        }
+
+        private void drain(long now, Executor local) {
+            if (!scheduled() || now < nextTick || !draining.compareAndSet(false, true))
+                return;
+            try {
+                wheel.advance(now, batches);
+                idle     = wheel.idle();
+                nextTick = wheel.nextTick();
+                TimerBatch.submit(batches, local);
+            } finally {
+                batches.clear();
+                draining.set(false);
+            }
+        }
+    }
+
+    private record Claim(Shard shard, Executor pool) {
+    }
+
+    private static final class Worker extends ForkJoinWorkerThread {
+        private final ShardedTimer timer;
+        private final Claim        claim;
+
+        private Worker(ForkJoinPool pool, ShardedTimer timer, Shard shard) {
+            super(pool);
+            this.timer = timer;
+            this.claim = new Claim(shard, pool);
+        }
+    }
+}
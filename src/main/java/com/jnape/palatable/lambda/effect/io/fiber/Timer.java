@@ -1,13 +1,22 @@
 package com.jnape.palatable.lambda.effect.io.fiber;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 public interface Timer {
 
     Runnable delay(Runnable runnable, long delay, TimeUnit timeUnit);
 
+    default Runnable delay(Runnable runnable, long delay, TimeUnit timeUnit, Executor executor) {
+        return delay(() -> executor.execute(runnable), delay, timeUnit);
+    }
+
+    default void pollExpired() {
+    }
+
     static Timer timer(ScheduledExecutorService scheduledExecutorService,
                        boolean interruptFuturesOnCancel) {
         return (runnable, delay, timeUnit) -> {
@@ -15,4 +24,20 @@ public interface Timer {
             return () -> future.cancel(interruptFuturesOnCancel);
         };
     }
+
+    static Timer coalescingTimer(ScheduledExecutorService scheduledExecutorService, long slack, TimeUnit timeUnit) {
+        return CoalescingTimer.coalescingTimer(scheduledExecutorService, slack, timeUnit);
+    }
+
+    static Timer shardedTimer(ThreadFactory tickerThreadFactory, int shards, long tickDuration, TimeUnit timeUnit) {
+        return ShardedTimer.shardedTimer(tickerThreadFactory, shards, tickDuration, timeUnit, 512);
+    }
+
+    static Timer hashedWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit timeUnit) {
+        return hashedWheelTimer(threadFactory, tickDuration, timeUnit, 512);
+    }
+
+    static Timer hashedWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit timeUnit, int wheelSize) {
+        return HashedWheelTimer.hashedWheelTimer(threadFactory, tickDuration, timeUnit, wheelSize);
+    }
 }
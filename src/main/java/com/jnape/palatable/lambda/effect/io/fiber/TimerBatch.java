@@ -0,0 +1,86 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+// Tasks that expire together and are bound for the same ForkJoinPool are handed to it as a single submission, or run in
+// place when the expiring thread already belongs to it; either way, the first task runs on that worker and the rest are
+// forked onto its local queue, where idle workers can steal them. Any other executor gets each task submitted on its own.
+final class TimerBatch implements Runnable {
+    private final Executor            executor;
+    private final ArrayList<Runnable> tasks;
+
+    private TimerBatch(Executor executor) {
+        this.executor = executor;
+        this.tasks    = new ArrayList<>();
+    }
+
+    // Forked last to first, so the owner pops them in the order they expired
+    @Override
+    public void run() {
+        Throwable failure = null;
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            try {
+                if (i == 0)
+                    tasks.get(0).run();
+                else
+                    fork(tasks.get(i));
+            } catch (Throwable t) {
+                if (failure == null)
+                    failure = t;
+                else
+                    failure.addSuppressed(t);
+            }
+        }
+        if (failure instanceof RuntimeException runtimeException)
+            throw runtimeException;
+        if (failure instanceof Error error)
+            throw error;
+    }
+
+    private void fork(Runnable task) {
+        if (Thread.currentThread() instanceof ForkJoinWorkerThread worker && worker.getPool() == executor)
+            ForkJoinTask.adapt(task).fork();
+        else
+            executor.execute(task);
+    }
+
+    static void add(List<TimerBatch> batches, Executor executor, Runnable task) {
+        for (TimerBatch batch : batches) {
+            if (batch.executor == executor) {
+                batch.tasks.add(task);
+                return;
+            }
+        }
+        TimerBatch batch = new TimerBatch(executor);
+        batch.tasks.add(task);
+        batches.add(batch);
+    }
+
+    static void submit(List<TimerBatch> batches, Executor local) {
+        for (TimerBatch batch : batches) {
+            try {
+                if (batch.executor == local)
+                    batch.run();
+                else if (batch.executor instanceof ForkJoinPool)
+                    batch.executor.execute(batch);
+                else
+                    batch.submitEach();
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+
+    private void submitEach() {
+        for (Runnable task : tasks) {
+            try {
+                executor.execute(task);
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+}
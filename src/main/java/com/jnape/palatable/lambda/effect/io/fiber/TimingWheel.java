@@ -0,0 +1,190 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.lang.Math.max;
+
+// Any thread may schedule or cancel; both push onto intrusive lock-free stacks and are O(1). Only one thread at a time
+// may advance the wheel, which drains those stacks and expires whole buckets. Deadlines are nanoseconds relative to the
+// owner's epoch and round up to the tick resolution, so a timeout never fires early and fires at most one tick late.
+final class TimingWheel {
+
+    private final long                     tickNanos;
+    private final Bucket[]                 wheel;
+    private final int                      mask;
+    private final AtomicReference<Timeout> pending;
+    private final AtomicReference<Timeout> cancelled;
+
+    private long tick;
+    private int  scheduled;
+
+    TimingWheel(long tickNanos, int wheelSize) {
+        if (tickNanos <= 0)
+            throw new IllegalArgumentException("tickDuration must be positive");
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1)
+            throw new IllegalArgumentException("wheelSize must be a positive power of two");
+        this.tickNanos = tickNanos;
+        this.wheel     = new Bucket[wheelSize];
+        this.mask      = wheelSize - 1;
+        this.pending   = new AtomicReference<>();
+        this.cancelled = new AtomicReference<>();
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    Runnable schedule(Runnable task, Executor executor, long deadline) {
+        Timeout timeout = new Timeout(task, executor, deadline);
+        Timeout head;
+        do {
+            head                = pending.get();
+            timeout.nextPending = head;
+        } while (!pending.compareAndSet(head, timeout));
+        return timeout;
+    }
+
+    boolean pending() {
+        return pending.get() != null;
+    }
+
+    boolean idle() {
+        return scheduled == 0 && pending.get() == null;
+    }
+
+    long nextTick() {
+        return (tick + 1) * tickNanos;
+    }
+
+    void advance(long now, List<TimerBatch> batches) {
+        if (scheduled == 0)
+            tick = max(tick, now / tickNanos);
+        while (true) {
+            scheduled += transferPending();
+            scheduled -= removeCancelled();
+            if ((tick + 1) * tickNanos > now)
+                return;
+            scheduled -= wheel[(int) (tick & mask)].expire(batches);
+            tick++;
+        }
+    }
+
+    private int transferPending() {
+        int     transferred = 0;
+        Timeout timeout     = pending.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextPending;
+            timeout.nextPending = null;
+            if (timeout.state.get() == Timeout.PENDING) {
+                long ticks = max(timeout.deadline / tickNanos, tick);
+                timeout.rounds = (ticks - tick) / wheel.length;
+                wheel[(int) (ticks & mask)].add(timeout);
+                transferred++;
+            }
+            timeout = next;
+        }
+        return transferred;
+    }
+
+    private int removeCancelled() {
+        int     removed = 0;
+        Timeout timeout = cancelled.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextCancelled;
+            timeout.nextCancelled = null;
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                removed++;
+            }
+            timeout = next;
+        }
+        return removed;
+    }
+
+    // Running a timeout cancels it.
+    private final class Timeout implements Runnable {
+        private static final int PENDING   = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED   = 2;
+
+        private final Runnable      task;
+        private final Executor      executor;
+        private final long          deadline;
+        private final AtomicInteger state;
+
+        private long    rounds;
+        private Bucket  bucket;
+        private Timeout prev;
+        private Timeout next;
+        private Timeout nextPending;
+        private Timeout nextCancelled;
+
+        private Timeout(Runnable task, Executor executor, long deadline) {
+            this.task     = task;
+            this.executor = executor;
+            this.deadline = deadline;
+            this.state    = new AtomicInteger(PENDING);
+        }
+
+        @Override
+        public void run() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                Timeout head;
+                do {
+                    head          = cancelled.get();
+                    nextCancelled = head;
+                } while (!cancelled.compareAndSet(head, this));
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next    = timeout;
+                timeout.prev = tail;
+                tail         = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null)
+                timeout.prev.next = timeout.next;
+            else
+                head = timeout.next;
+            if (timeout.next != null)
+                timeout.next.prev = timeout.prev;
+            else
+                tail = timeout.prev;
+            timeout.prev   = null;
+            timeout.next   = null;
+            timeout.bucket = null;
+        }
+
+        private int expire(List<TimerBatch> batches) {
+            int     expired = 0;
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    expired++;
+                    if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED))
+                        TimerBatch.add(batches, timeout.executor, timeout.task);
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+            return expired;
+        }
+    }
+}
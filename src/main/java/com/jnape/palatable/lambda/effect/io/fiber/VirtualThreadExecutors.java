@@ -0,0 +1,38 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import com.jnape.palatable.lambda.adt.Maybe;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static com.jnape.palatable.lambda.adt.Try.trying;
+
+// Virtual threads (JDK 21+) looked up reflectively, so the library still builds and runs on 17; on older JDKs (or 19/20
+// without preview enabled) every lookup comes back empty
+final class VirtualThreadExecutors {
+
+    private VirtualThreadExecutors() {
+    }
+
+    static boolean supported() {
+        return virtualThreadPerTaskExecutor("lambda-io-probe-")
+                .fmap(executorService -> {
+                    executorService.shutdown();
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    // Starts a new virtual thread, named namePrefix followed by a counter, for every submitted task
+    static Maybe<ExecutorService> virtualThreadPerTaskExecutor(String namePrefix) {
+        return trying(() -> {
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            Object   builder   = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) ofVirtual.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        }).toMaybe();
+    }
+}
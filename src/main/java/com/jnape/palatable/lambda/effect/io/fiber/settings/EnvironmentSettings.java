@@ -1,26 +1,78 @@
 package com.jnape.palatable.lambda.effect.io.fiber.settings;
 
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.Settings.loadBoolean;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.Settings.loadEnum;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.Settings.loadInteger;
+import static com.jnape.palatable.lambda.functions.builtin.fn2.GT.gt;
 
-public record EnvironmentSettings(boolean interruptFuturesOnCancel) {
+public record EnvironmentSettings(boolean interruptFuturesOnCancel,
+                                  TimerStrategy timerStrategy,
+                                  int timerTickMicros,
+                                  int timerSlackMicros,
+                                  VirtualThreads virtualThreads,
+                                  EventLoop eventLoop) {
 
-    public static final EnvironmentSettings DEFAULT = new EnvironmentSettings(false);
+    public static final EnvironmentSettings DEFAULT =
+            new EnvironmentSettings(false, TimerStrategy.SCHEDULED_EXECUTOR, 1000, 1000, VirtualThreads.NONE,
+                                    EventLoop.FORK_JOIN_POOL);
+
+    public EnvironmentSettings(boolean interruptFuturesOnCancel) {
+        this(interruptFuturesOnCancel, DEFAULT.timerStrategy, DEFAULT.timerTickMicros, DEFAULT.timerSlackMicros,
+             DEFAULT.virtualThreads, DEFAULT.eventLoop);
+    }
 
     public static EnvironmentSettings system() {
         return System.LOADED;
     }
 
+    public enum TimerStrategy {
+        SCHEDULED_EXECUTOR,
+        COALESCING,
+        HASHED_WHEEL,
+        SHARDED
+    }
+
+    // Which executors start a virtual thread per task (JDK 21+; platform threads are used where unsupported)
+    public enum VirtualThreads {
+        NONE,
+        BLOCKING,
+        ALL
+    }
+
+    // Which platform-thread pool runs fibers when they aren't on virtual threads
+    public enum EventLoop {
+        FORK_JOIN_POOL,
+        FIBER_SCHEDULER
+    }
+
     static final class System {
         private static final EnvironmentSettings LOADED = load();
 
         static EnvironmentSettings load() {
             return new EnvironmentSettings(
                     loadBoolean(PropertyLabels.InterruptFuturesOnCancel.name())
-                            .orElse(DEFAULT.interruptFuturesOnCancel));
+                            .orElse(DEFAULT.interruptFuturesOnCancel),
+                    loadEnum(TimerStrategy.class, PropertyLabels.TimerStrategy.name())
+                            .orElse(DEFAULT.timerStrategy),
+                    loadInteger(PropertyLabels.TimerTickMicros.name())
+                            .filter(gt(0))
+                            .orElse(DEFAULT.timerTickMicros),
+                    loadInteger(PropertyLabels.TimerSlackMicros.name())
+                            .filter(gt(0))
+                            .orElse(DEFAULT.timerSlackMicros),
+                    loadEnum(VirtualThreads.class, PropertyLabels.VirtualThreads.name())
+                            .orElse(DEFAULT.virtualThreads),
+                    loadEnum(EventLoop.class, PropertyLabels.EventLoop.name())
+                            .orElse(DEFAULT.eventLoop));
         }
 
         enum PropertyLabels {
-            InterruptFuturesOnCancel
+            InterruptFuturesOnCancel,
+            TimerStrategy,
+            TimerTickMicros,
+            TimerSlackMicros,
+            VirtualThreads,
+            EventLoop
         }
     }
-}
\ No newline at end of file
+}
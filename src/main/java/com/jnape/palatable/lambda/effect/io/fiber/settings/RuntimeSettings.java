@@ -1,14 +1,58 @@
 package com.jnape.palatable.lambda.effect.io.fiber.settings;
 
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.Settings.loadBoolean;
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.Settings.loadInteger;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.GT.gt;
 
+// timeSliceMicros: 0 preempts on tick count alone; otherwise fibers also yield once they've held the thread this long,
+// with the clock checked at a tick budget that adapts to observed slice durations (never past maxTicksBeforePreemption)
+// traceSampleRate: 0 disables async stack traces; otherwise 1 in every traceSampleRate fibers records the call sites it
+// ran through, attached to its failures (1 traces every fiber, for debugging)
 //todo: enable additional settings
-public record RuntimeSettings(int maxTicksBeforePreemption/*,
-                              boolean debitBudgetForBindRightAssociation,
-                              boolean treatThunksAsBlocking*/) {
+public record RuntimeSettings(int maxTicksBeforePreemption,
+                              int cancellationCheckInterval,
+                              boolean runSyncOnCallerThread,
+                              boolean treatThunksAsBlocking,
+                              int timeSliceMicros,
+                              int traceSampleRate/*,
+                              boolean debitBudgetForBindRightAssociation*/) {
 
-    public static final RuntimeSettings DEFAULT = new RuntimeSettings(512/*, false, false*/);
+    public static final RuntimeSettings DEFAULT = new RuntimeSettings(512, 1, false, false, 0, 0/*, false*/);
+
+    public RuntimeSettings(int maxTicksBeforePreemption) {
+        this(maxTicksBeforePreemption, DEFAULT.cancellationCheckInterval, DEFAULT.runSyncOnCallerThread,
+             DEFAULT.treatThunksAsBlocking, DEFAULT.timeSliceMicros, DEFAULT.traceSampleRate);
+    }
+
+    public RuntimeSettings withMaxTicksBeforePreemption(int maxTicksBeforePreemption) {
+        return new RuntimeSettings(maxTicksBeforePreemption, cancellationCheckInterval, runSyncOnCallerThread,
+                                   treatThunksAsBlocking, timeSliceMicros, traceSampleRate);
+    }
+
+    public RuntimeSettings withCancellationCheckInterval(int cancellationCheckInterval) {
+        return new RuntimeSettings(maxTicksBeforePreemption, cancellationCheckInterval, runSyncOnCallerThread,
+                                   treatThunksAsBlocking, timeSliceMicros, traceSampleRate);
+    }
+
+    public RuntimeSettings withRunSyncOnCallerThread(boolean runSyncOnCallerThread) {
+        return new RuntimeSettings(maxTicksBeforePreemption, cancellationCheckInterval, runSyncOnCallerThread,
+                                   treatThunksAsBlocking, timeSliceMicros, traceSampleRate);
+    }
+
+    public RuntimeSettings withTreatThunksAsBlocking(boolean treatThunksAsBlocking) {
+        return new RuntimeSettings(maxTicksBeforePreemption, cancellationCheckInterval, runSyncOnCallerThread,
+                                   treatThunksAsBlocking, timeSliceMicros, traceSampleRate);
+    }
+
+    public RuntimeSettings withTimeSliceMicros(int timeSliceMicros) {
+        return new RuntimeSettings(maxTicksBeforePreemption, cancellationCheckInterval, runSyncOnCallerThread,
+                                   treatThunksAsBlocking, timeSliceMicros, traceSampleRate);
+    }
+
+    public RuntimeSettings withTraceSampleRate(int traceSampleRate) {
+        return new RuntimeSettings(maxTicksBeforePreemption, cancellationCheckInterval, runSyncOnCallerThread,
+                                   treatThunksAsBlocking, timeSliceMicros, traceSampleRate);
+    }
 
     public static RuntimeSettings system() {
         return System.LOADED;
@@ -21,9 +65,20 @@ public record RuntimeSettings(int maxTicksBeforePreemption/*,
             return new RuntimeSettings(
                     loadInteger(PropertyLabels.MaxTicksBeforePreemption.name())
                             .filter(gt(0))
-                            .orElse(DEFAULT.maxTicksBeforePreemption)/*,
-                loadBoolean(PropertyLabels.DebitBudgetForBindRightAssociation.name())
-                        .orElse(DEFAULT.debitBudgetForBindRightAssociation),
+                            .orElse(DEFAULT.maxTicksBeforePreemption),
+                    loadInteger(PropertyLabels.CancellationCheckInterval.name())
+                            .filter(gt(0))
+                            .orElse(DEFAULT.cancellationCheckInterval),
+                    loadBoolean(PropertyLabels.RunSyncOnCallerThread.name())
+                            .orElse(DEFAULT.runSyncOnCallerThread),
+                    loadBoolean(PropertyLabels.TreatThunksAsBlocking.name())
+                            .orElse(DEFAULT.treatThunksAsBlocking),
+                    loadInteger(PropertyLabels.TimeSliceMicros.name())
+                            .filter(gt(0))
+                            .orElse(DEFAULT.timeSliceMicros),
+                    loadInteger(PropertyLabels.TraceSampleRate.name())
+                            .filter(gt(0))
+                            .orElse(DEFAULT.traceSampleRate)/*,
                 loadBoolean(PropertyLabels.DebitBudgetForBindRightAssociation.name())
                         .orElse(DEFAULT.debitBudgetForBindRightAssociation)*/);
         }
@@ -31,7 +86,11 @@ public record RuntimeSettings(int maxTicksBeforePreemption/*,
         enum PropertyLabels {
             DebitBudgetForBindRightAssociation,
             TreatThunksAsBlocking,
-            MaxTicksBeforePreemption
+            MaxTicksBeforePreemption,
+            CancellationCheckInterval,
+            RunSyncOnCallerThread,
+            TimeSliceMicros,
+            TraceSampleRate
         }
     }
 }
@@ -28,6 +28,10 @@ public final class Settings {
         return loadAndParse(label, v -> trying(() -> parseInt(v)).toMaybe());
     }
 
+    public static <E extends Enum<E>> Maybe<E> loadEnum(Class<E> enumType, String label) {
+        return loadAndParse(label, v -> trying(() -> Enum.valueOf(enumType, v.toUpperCase())).toMaybe());
+    }
+
     private static <A> Maybe<A> loadAndParse(String label, Fn1<? super String, ? extends Maybe<A>> tryParse) {
         return maybe(getProperty(label)).<Maybe<A>>fmap(tryParse)
                 .orElseGet(() -> maybe(getenv(label)).flatMap(tryParse));
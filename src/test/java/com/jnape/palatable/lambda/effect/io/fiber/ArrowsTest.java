@@ -0,0 +1,60 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Arrows.arrows;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ArrowsTest {
+
+    @Test
+    public void singleton() {
+        Function<Integer, Fiber<Integer>> f      = Fiber::succeeded;
+        Arrows<Integer, Integer>          arrows = arrows(f);
+        assertEquals(1, arrows.size());
+        assertSame(f, arrows.arrow(0));
+    }
+
+    @Test
+    public void snocAppendsInOrder() {
+        Function<Integer, Fiber<Integer>> f = x -> succeeded(x + 1);
+        Function<Integer, Fiber<String>>  g = x -> succeeded(x.toString());
+        Function<String, Fiber<Integer>>  h = s -> succeeded(s.length());
+
+        Arrows<Integer, Integer> arrows = Arrows.<Integer, Integer>arrows(f).snoc(g).snoc(h);
+        assertEquals(3, arrows.size());
+        assertSame(f, arrows.arrow(0));
+        assertSame(g, arrows.arrow(1));
+        assertSame(h, arrows.arrow(2));
+    }
+
+    @Test
+    public void snocGrowsPastInitialCapacity() {
+        Arrows<Integer, Integer> arrows = arrows(Fiber::succeeded);
+        for (int i = 1; i < 100; i++) {
+            arrows = arrows.snoc(Fiber::succeeded);
+        }
+        assertEquals(100, arrows.size());
+    }
+
+    @Test
+    public void snocIsPersistent() {
+        Function<Integer, Fiber<Integer>> f = Fiber::succeeded;
+        Function<Integer, Fiber<Integer>> g = x -> succeeded(x + 1);
+        Function<Integer, Fiber<Integer>> h = x -> succeeded(x - 1);
+
+        Arrows<Integer, Integer> prefix = arrows(f);
+        Arrows<Integer, Integer> left   = prefix.snoc(g);
+        Arrows<Integer, Integer> right  = prefix.snoc(h);
+
+        assertEquals(1, prefix.size());
+        assertSame(f, left.arrow(0));
+        assertSame(g, left.arrow(1));
+        assertSame(f, right.arrow(0));
+        assertSame(h, right.arrow(1));
+    }
+}
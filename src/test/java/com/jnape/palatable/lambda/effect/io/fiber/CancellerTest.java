@@ -6,11 +6,17 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.synchronizedList;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -91,8 +97,8 @@ public class CancellerTest {
     @Test
     public void cancelCallbacksAreFiredInOrder() {
         List<String> interactions = new ArrayList<>();
-        assertTrue(canceller.onCancellation(() -> interactions.add("first")));
-        assertTrue(canceller.onCancellation(() -> interactions.add("second")));
+        assertNotEquals(nothing(), canceller.onCancellation(() -> interactions.add("first")));
+        assertNotEquals(nothing(), canceller.onCancellation(() -> interactions.add("second")));
         assertEquals(emptyList(), interactions);
         canceller.cancel();
         assertEquals(List.of("first", "second"), interactions);
@@ -101,8 +107,8 @@ public class CancellerTest {
     @Test
     public void failuresInCancellationCallbacksDoNotInterfere() {
         List<String> interactions = new ArrayList<>();
-        assertTrue(canceller.onCancellation(() -> {throw new IllegalStateException("kaboom");}));
-        assertTrue(canceller.onCancellation(() -> interactions.add("second")));
+        assertNotEquals(nothing(), canceller.onCancellation(() -> {throw new IllegalStateException("kaboom");}));
+        assertNotEquals(nothing(), canceller.onCancellation(() -> interactions.add("second")));
         assertEquals(emptyList(), interactions);
         canceller.cancel();
         assertEquals(List.of("second"), interactions);
@@ -111,11 +117,133 @@ public class CancellerTest {
     @Test
     public void callbacksAddedAfterCancellationAreNotRegistered() {
         List<String> interactions = new ArrayList<>();
-        assertTrue(canceller.onCancellation(() -> interactions.add("first")));
+        assertNotEquals(nothing(), canceller.onCancellation(() -> interactions.add("first")));
         assertEquals(emptyList(), interactions);
         canceller.cancel();
         assertEquals(singletonList("first"), interactions);
-        assertFalse(canceller.onCancellation(() -> interactions.add("second")));
+        assertEquals(nothing(), canceller.onCancellation(() -> interactions.add("second")));
         assertEquals(singletonList("first"), interactions);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void deregisteredCallbacksAreNotFired() {
+        List<String> interactions   = new ArrayList<>();
+        Runnable     deregistration = canceller.onCancellation(() -> interactions.add("first"))
+                .orElseThrow(IllegalStateException::new);
+        assertNotEquals(nothing(), canceller.onCancellation(() -> interactions.add("second")));
+        deregistration.run();
+        deregistration.run();
+        canceller.cancel();
+        assertEquals(singletonList("second"), interactions);
+    }
+
+    @Test
+    public void deregisteredCallbacksAreSwept() {
+        for (int i = 0; i < 10_000; i++) {
+            canceller.onCancellation(() -> {}).orElseThrow(IllegalStateException::new).run();
+        }
+        assertTrue(canceller.registrations() <= 64);
+    }
+
+    @Test
+    public void parentCallbacksFireBeforeDescendantCallbacks() {
+        List<String> interactions = new ArrayList<>();
+        Canceller    child        = canceller.addChild();
+        child.addChild().onCancellation(() -> interactions.add("grandchild"));
+        child.onCancellation(() -> interactions.add("child"));
+        canceller.onCancellation(() -> interactions.add("parent"));
+        canceller.cancel();
+        assertEquals(List.of("parent", "child", "grandchild"), interactions);
+    }
+
+    @Test
+    public void cancellingDeeplyNestedDescendantsIsStackSafe() {
+        AtomicInteger fired   = new AtomicInteger(0);
+        Canceller     deepest = canceller;
+        for (int i = 0; i < 100_000; i++) {
+            deepest = deepest.addChild();
+            deepest.onCancellation(fired::incrementAndGet);
+        }
+        canceller.cancel();
+        assertTrue(deepest.cancelled());
+        assertEquals(100_000, fired.get());
+    }
+
+    @Test
+    public void largeTreesHandOffCallbacksToTheCallbackExecutorInBatches() {
+        List<Runnable> submitted = new ArrayList<>();
+        Canceller      root      = Canceller.canceller(submitted::add);
+        AtomicInteger  fired     = new AtomicInteger(0);
+        for (int i = 0; i < 5_000; i++) {
+            root.addChild().onCancellation(fired::incrementAndGet);
+        }
+        root.cancel();
+        assertEquals(1_024, fired.get());
+        assertEquals(4, submitted.size());
+        submitted.forEach(Runnable::run);
+        assertEquals(5_000, fired.get());
+    }
+
+    @Test
+    public void smallTreesRunCallbacksOnTheCancellingThread() {
+        List<Runnable> submitted = new ArrayList<>();
+        Canceller      root      = Canceller.canceller(submitted::add);
+        AtomicInteger  fired     = new AtomicInteger(0);
+        for (int i = 0; i < 1_024; i++) {
+            root.addChild().onCancellation(fired::incrementAndGet);
+        }
+        root.cancel();
+        assertEquals(1_024, fired.get());
+        assertEquals(emptyList(), submitted);
+    }
+
+    @Test
+    public void onlyChildrenStillRegisteredWhenManyAreRemovedAreCancelled() {
+        List<Canceller> children = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            children.add(canceller.addChild());
+        }
+        for (int i = 0; i < children.size(); i += 2) {
+            canceller.removeChild(children.get(i));
+        }
+        canceller.cancel();
+        for (int i = 0; i < children.size(); i++) {
+            assertEquals(i % 2 == 1, children.get(i).cancelled());
+        }
+    }
+
+    @Test
+    public void removingAChildFromAnotherParentIsANoop() {
+        Canceller child = canceller.addChild();
+        Canceller.canceller().removeChild(child);
+        canceller.cancel();
+        assertTrue(child.cancelled());
+    }
+
+    @Test
+    public void concurrentRegistrationAndRemoval() throws InterruptedException {
+        int             threads   = 4;
+        int             perThread = 10_000;
+        List<Canceller> survivors = synchronizedList(new ArrayList<>());
+        List<Canceller> removed   = synchronizedList(new ArrayList<>());
+        CountDownLatch  done      = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Canceller child = canceller.addChild();
+                    if (i % 3 == 0) {
+                        survivors.add(child);
+                    } else {
+                        canceller.removeChild(child);
+                        removed.add(child);
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(10, SECONDS));
+        canceller.cancel();
+        survivors.forEach(child -> assertTrue(child.cancelled()));
+        removed.forEach(child -> assertFalse(child.cancelled()));
+    }
+}
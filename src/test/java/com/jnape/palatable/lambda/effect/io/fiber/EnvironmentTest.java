@@ -0,0 +1,100 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.DEFAULT;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.EventLoop.FIBER_SCHEDULER;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.TimerStrategy.SHARDED;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.VirtualThreads.ALL;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.VirtualThreads.BLOCKING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EnvironmentTest {
+
+    private static final boolean VIRTUAL_THREADS_SUPPORTED = java.lang.Runtime.version().feature() >= 21;
+
+    @Test
+    public void blockingExecutorUsesNamedDaemonThreads() {
+        Thread thread = threadOf(Environment.fromSettings(DEFAULT).blockingExecutor());
+        assertThat(thread.getName(), startsWith("lambda-io-blocking-"));
+        assertTrue(thread.isDaemon());
+    }
+
+    @Test
+    public void virtualThreadsAreOnlyUsedWhereSupported() {
+        assertEquals(VIRTUAL_THREADS_SUPPORTED, VirtualThreadExecutors.supported());
+        assertEquals(VIRTUAL_THREADS_SUPPORTED,
+                     VirtualThreadExecutors.virtualThreadPerTaskExecutor("test-").toOptional().isPresent());
+    }
+
+    @Test
+    public void virtualBlockingThreadsFallBackToNamedPlatformThreads() {
+        Thread thread = threadOf(Environment.fromSettings(withVirtualThreads(BLOCKING)).blockingExecutor());
+        assertThat(thread.getName(), startsWith("lambda-io-blocking-"));
+        assertTrue(thread.isDaemon());
+    }
+
+    @Test
+    public void virtualEventLoopSharesItsThreadsWithBlockingWork() {
+        Environment environment = Environment.fromSettings(withVirtualThreads(ALL));
+        assertThat(threadOf(environment.defaultExecutor()).getName(), startsWith("lambda-io-event-loop-"));
+        if (VIRTUAL_THREADS_SUPPORTED)
+            assertSame(environment.defaultExecutor(), environment.blockingExecutor());
+        else
+            assertNotSame(environment.defaultExecutor(), environment.blockingExecutor());
+    }
+
+    @Test
+    public void virtualThreadsEnvironmentRequiresSupport() {
+        if (VIRTUAL_THREADS_SUPPORTED) {
+            Environment environment = Environment.virtualThreads(DEFAULT);
+            assertSame(environment.defaultExecutor(), environment.blockingExecutor());
+        } else {
+            assertThrows(UnsupportedOperationException.class, () -> Environment.virtualThreads(DEFAULT));
+        }
+    }
+
+    @Test
+    public void fiberSchedulerEventLoop() {
+        Environment environment = Environment.fromSettings(
+                new EnvironmentSettings(DEFAULT.interruptFuturesOnCancel(), DEFAULT.timerStrategy(),
+                                        DEFAULT.timerTickMicros(), DEFAULT.timerSlackMicros(),
+                                        DEFAULT.virtualThreads(), FIBER_SCHEDULER));
+        assertThat(environment.defaultExecutor(), instanceOf(FiberScheduler.class));
+        assertThat(threadOf(environment.defaultExecutor()).getName(), startsWith("lambda-io-event-loop-"));
+    }
+
+    @Test
+    public void shardedTimerTickerThreadIsIndexed() {
+        Environment environment = Environment.fromSettings(
+                new EnvironmentSettings(DEFAULT.interruptFuturesOnCancel(), SHARDED, DEFAULT.timerTickMicros(),
+                                        DEFAULT.timerSlackMicros(), DEFAULT.virtualThreads(), FIBER_SCHEDULER));
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        environment.timer().delay(() -> thread.complete(Thread.currentThread()), 1, MILLISECONDS);
+        assertEquals("lambda-io-timer-1", thread.join().getName());
+    }
+
+    private static EnvironmentSettings withVirtualThreads(EnvironmentSettings.VirtualThreads virtualThreads) {
+        return new EnvironmentSettings(DEFAULT.interruptFuturesOnCancel(), DEFAULT.timerStrategy(),
+                                       DEFAULT.timerTickMicros(), DEFAULT.timerSlackMicros(), virtualThreads,
+                                       DEFAULT.eventLoop());
+    }
+
+    private static Thread threadOf(Executor executor) {
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        executor.execute(() -> thread.complete(Thread.currentThread()));
+        return thread.join();
+    }
+}
@@ -0,0 +1,207 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.blocking;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.delay;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.failed;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.fiber;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.parallel;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.pin;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings.DEFAULT;
+import static com.jnape.palatable.lambda.effect.io.fiber.testsupport.Never.never;
+import static com.jnape.palatable.lambda.effect.io.fiber.testsupport.scheduler.SameThread.sameThread;
+import static com.jnape.palatable.lambda.functions.builtin.fn3.Times.times;
+import static java.time.Duration.ofMillis;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(30)
+public class FiberEventsTest {
+
+    private static final RuntimeException CAUSE = new RuntimeException("blew up");
+
+    private Recording recording;
+    private Path      dump;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        recording = new Recording();
+        dump      = Files.createTempFile("fiber-events", ".jfr");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        recording.close();
+        Files.deleteIfExists(dump);
+    }
+
+    @Test
+    public void eventsAreDisabledByDefault() {
+        fiberRunLoop(new Environment(sameThread(), sameThread(), sameThread(), Canceller::canceller), DEFAULT)
+                .schedule(succeeded(1), __ -> {});
+        List<EventType> fiberEvents = FlightRecorder.getFlightRecorder().getEventTypes().stream()
+                .filter(type -> type.getName().startsWith("lambda.io."))
+                .collect(toList());
+        assertThat(fiberEvents, hasSize(6));
+        assertFalse(fiberEvents.stream().anyMatch(EventType::isEnabled));
+    }
+
+    @Test
+    public void recordsFiberLifetimes() throws IOException {
+        List<RecordedEvent> events = record(runtime -> {
+            runtime.schedule(succeeded(1), __ -> {});
+            runtime.schedule(failed(CAUSE), __ -> {});
+        }, "lambda.io.Fiber");
+
+        assertThat(events, hasSize(2));
+        assertEquals(List.of("success", "failure"),
+                     events.stream().map(e -> e.getString("outcome")).collect(toList()));
+        assertTrue(events.get(0).getLong("fiberId") != events.get(1).getLong("fiberId"));
+    }
+
+    @Test
+    public void recordsPreemptionsOfTheSameFiber() throws IOException {
+        FiberRunLoop runtime = fiberRunLoop(new Environment(sameThread(), sameThread(), sameThread(),
+                                                            Canceller::canceller),
+                                            DEFAULT.withMaxTicksBeforePreemption(2));
+        recording.enable("lambda.io.FiberPreemption");
+        recording.start();
+        runtime.schedule(times(10, f -> f.bind(x -> succeeded(x + 1)), succeeded(0)), __ -> {});
+        List<RecordedEvent> events = stop();
+
+        assertThat(events.size(), greaterThan(1));
+        assertEquals(1, events.stream().mapToLong(e -> e.getLong("fiberId")).distinct().count());
+    }
+
+    @Test
+    public void recordsPinHopsBothWays() throws IOException {
+        List<RecordedEvent> events = record(runtime -> runtime.schedule(pin(fiber(() -> 1), new Inline()), __ -> {}),
+                                            "lambda.io.FiberPinHop");
+
+        assertThat(events, hasSize(2));
+        assertEquals(events.get(0).getLong("fiberId"), events.get(1).getLong("fiberId"));
+        assertEquals(Inline.class.getName(), events.get(0).getClass("to").getName());
+        assertEquals(Inline.class.getName(), events.get(1).getClass("from").getName());
+    }
+
+    @Test
+    public void recordsBlockingHandoffs() throws IOException {
+        FiberRunLoop runtime = fiberRunLoop(new Environment(sameThread(), sameThread(), new Inline(),
+                                                            Canceller::canceller), DEFAULT);
+        recording.enable("lambda.io.FiberBlockingHandoff");
+        recording.start();
+        runtime.schedule(blocking(() -> 1), __ -> {});
+        List<RecordedEvent> events = stop();
+
+        assertThat(events, hasSize(1));
+        assertEquals(Inline.class.getName(), events.get(0).getClass("to").getName());
+    }
+
+    @Test
+    public void recordsDelays() throws IOException {
+        FiberRunLoop runtime = fiberRunLoop(new Environment((runnable, d, tu) -> {
+            runnable.run();
+            return () -> {};
+        }, sameThread(), sameThread(), Canceller::canceller), DEFAULT);
+        recording.enable("lambda.io.FiberDelay");
+        recording.start();
+        runtime.schedule(delay(succeeded(1), ofMillis(5)), __ -> {});
+        List<RecordedEvent> events = stop();
+
+        assertThat(events, hasSize(1));
+        assertEquals(ofMillis(5), events.get(0).getDuration("requested"));
+        assertFalse(events.get(0).getBoolean("cancelled"));
+    }
+
+    @Test
+    public void recordsADelayCancelledAfterFiringOnce() throws IOException {
+        // runs inline rather than trampolining, so the timer has fired by the time the canceller is cancelled
+        Canceller canceller = Canceller.canceller();
+        Executor  inline    = Runnable::run;
+        FiberRunLoop runtime = fiberRunLoop(new Environment((runnable, d, tu) -> {
+            runnable.run();
+            canceller.cancel();
+            return () -> {};
+        }, inline, inline, () -> canceller), DEFAULT);
+        recording.enable("lambda.io.FiberDelay");
+        recording.start();
+        runtime.schedule(delay(succeeded(1), ofMillis(5)), __ -> {});
+        List<RecordedEvent> events = stop();
+
+        assertThat(events, hasSize(1));
+        assertFalse(events.get(0).getBoolean("cancelled"));
+    }
+
+    @Test
+    public void recordsCancellationsTriggeredByFibers() throws IOException {
+        List<RecordedEvent> events = record(runtime -> runtime.schedule(parallel(never(), failed(CAUSE)), __ -> {}),
+                                            "lambda.io.Cancellation");
+
+        assertThat(events, hasSize(1));
+        assertThat(events.stream().map(e -> e.getLong("fiberId")).collect(toList()), everyItem(greaterThan(0L)));
+        assertEquals(1, events.get(0).getInt("cancellers"));
+    }
+
+    @Test
+    public void recordsCancellationsFromOutsideFibers() throws IOException {
+        recording.enable("lambda.io.Cancellation");
+        recording.start();
+        Canceller canceller = Canceller.canceller();
+        canceller.addChild();
+        canceller.onCancellation(() -> {});
+        canceller.cancel();
+        List<RecordedEvent> events = stop();
+
+        assertThat(events, hasSize(1));
+        assertEquals(0, events.get(0).getLong("fiberId"));
+        assertEquals(2, events.get(0).getInt("cancellers"));
+        assertEquals(1, events.get(0).getInt("callbacks"));
+    }
+
+    private List<RecordedEvent> record(Consumer<FiberRunLoop> scenario, String event) throws IOException {
+        recording.enable(event);
+        recording.start();
+        scenario.accept(fiberRunLoop(new Environment(sameThread(), sameThread(), sameThread(), Canceller::canceller),
+                                     DEFAULT));
+        return stop();
+    }
+
+    private List<RecordedEvent> stop() throws IOException {
+        recording.stop();
+        recording.dump(dump);
+        return RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().startsWith("lambda.io."))
+                .collect(toList());
+    }
+
+    private static final class Inline implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.jnape.palatable.lambda.effect.io.fiber;
 
 import com.jnape.palatable.lambda.adt.Unit;
+import com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings;
 import com.jnape.palatable.lambda.functions.Fn1;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -10,22 +11,34 @@ import org.junit.jupiter.api.Timeout;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import static com.jnape.palatable.lambda.adt.Unit.UNIT;
 import static com.jnape.palatable.lambda.effect.io.fiber.Canceller.canceller;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.blocking;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.cancelled;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.delay;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.failed;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.fiber;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.forever;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.parallel;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.parallelForEach;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.pin;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.race;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.result;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.zip;
 import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.Metrics.countingMetrics;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.cancellation;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.failure;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.success;
@@ -40,14 +53,23 @@ import static java.time.Duration.ofNanos;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.ForkJoinPool.commonPool;
+import static java.util.concurrent.ForkJoinPool.defaultForkJoinWorkerThreadFactory;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.junit.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -199,6 +221,520 @@ public class FiberRunLoopTest {
         }
     }
 
+    @Nested
+    public class CancellationPolling {
+
+        @Test
+        public void everyTickByDefault() {
+            assertEquals(0, bindsObservedAfterCancellation(DEFAULT));
+        }
+
+        @Test
+        public void boundedByCheckInterval() {
+            int interval = 8;
+            int observed = bindsObservedAfterCancellation(DEFAULT.withCancellationCheckInterval(interval));
+            assertTrue(observed < interval, "Expected fewer than " + interval + " binds, but observed " + observed);
+        }
+
+        @Test
+        public void alwaysCheckedAtAsyncBoundaries() {
+            Canceller                        canceller = canceller();
+            AtomicInteger                    observed  = new AtomicInteger();
+            AtomicReference<Result<Integer>> result    = new AtomicReference<>();
+            fiberRunLoop(new Environment(sameThread(), sameThread(), sameThread(), () -> canceller),
+                         DEFAULT.withCancellationCheckInterval(Integer.MAX_VALUE))
+                    .schedule(fiber(() -> {
+                        canceller.cancel();
+                        return 1;
+                    }).bind(x -> {
+                        observed.incrementAndGet();
+                        return succeeded(x);
+                    }), result::set);
+            assertEquals(cancellation(), result.get());
+            assertEquals(0, observed.get());
+        }
+
+        private int bindsObservedAfterCancellation(RuntimeSettings runtimeSettings) {
+            Canceller                        canceller = canceller();
+            AtomicInteger                    observed  = new AtomicInteger();
+            AtomicReference<Result<Integer>> result    = new AtomicReference<>();
+            Fiber<Integer> fiber = succeeded(0).bind(x -> {
+                canceller.cancel();
+                return succeeded(x);
+            });
+            for (int i = 0; i < 100; i++) {
+                fiber = fiber.bind(x -> {
+                    observed.incrementAndGet();
+                    return succeeded(x + 1);
+                });
+            }
+            fiberRunLoop(new Environment(sameThread(), sameThread(), sameThread(), () -> canceller), runtimeSettings)
+                    .schedule(fiber, result::set);
+            assertEquals(cancellation(), result.get());
+            return observed.get();
+        }
+    }
+
+    @Nested
+    public class RunSync {
+
+        private static final RuntimeSettings ON_CALLER_THREAD = DEFAULT.withRunSyncOnCallerThread(true);
+
+        private AtomicInteger submissions;
+        private Executor      executor;
+
+        @BeforeEach
+        public void setUp() {
+            submissions = new AtomicInteger();
+            executor    = before(sameThread(), __ -> submissions.incrementAndGet());
+        }
+
+        @Test
+        public void schedulesOnDefaultExecutorByDefault() {
+            assertEquals(success(1), runLoop(DEFAULT).runSync(succeeded(1)));
+            assertEquals(1, submissions.get());
+        }
+
+        @Test
+        public void synchronousFiberRunsOnCallerThread() {
+            Thread caller = Thread.currentThread();
+            assertEquals(success(caller), runLoop(ON_CALLER_THREAD)
+                    .runSync(fiber(() -> 1).bind(__ -> fiber(Thread::currentThread))));
+            assertEquals(0, submissions.get());
+        }
+
+        @Test
+        public void preemptionTrampolinesOnCallerThread() {
+            RuntimeSettings settings = DEFAULT.withMaxTicksBeforePreemption(2).withRunSyncOnCallerThread(true);
+            assertEquals(success(100),
+                         runLoop(settings).runSync(times(100, f -> f.bind(x -> fiber(() -> x + 1)), succeeded(0))));
+            assertEquals(0, submissions.get());
+        }
+
+        @Test
+        public void asyncBoundaryHandsOffToDefaultExecutor() {
+            assertEquals(success(1), runLoop(ON_CALLER_THREAD).runSync(delay(succeeded(1), ofNanos(1))));
+            assertEquals(1, submissions.get());
+        }
+
+        @Test
+        public void pinningToDefaultExecutorHandsOff() {
+            assertEquals(success(1), runLoop(ON_CALLER_THREAD).runSync(pin(succeeded(1), executor)));
+            assertEquals(2, submissions.get());
+        }
+
+        @Test
+        public void resumingOnTheCallersOwnExecutorAfterAHandoffPreemptsThroughIt() {
+            RuntimeSettings settings = DEFAULT.withMaxTicksBeforePreemption(2).withRunSyncOnCallerThread(true);
+            assertEquals(success(100),
+                         runLoop(settings).runSync(times(100, f -> f.bind(x -> fiber(() -> x + 1)),
+                                                         pin(succeeded(0), executor))));
+            assertThat(submissions.get(), greaterThan(2));
+        }
+
+        private FiberRunLoop runLoop(RuntimeSettings runtimeSettings) {
+            return fiberRunLoop(new Environment(sameThread(), executor, executor, Canceller::canceller),
+                                runtimeSettings);
+        }
+    }
+
+    @Nested
+    public class Preemption {
+
+        private static final RuntimeSettings TWO_TICKS = DEFAULT.withMaxTicksBeforePreemption(2);
+
+        private AtomicInteger submissions;
+        private Executor      executor;
+        private AtomicLong    clock;
+
+        @BeforeEach
+        public void setUp() {
+            submissions = new AtomicInteger();
+            executor    = before(sameThread(), __ -> submissions.incrementAndGet());
+            clock       = new AtomicLong(1);
+        }
+
+        @Test
+        public void exhaustedBudgetResumesLocallyThenYieldsToTheExecutor() {
+            AtomicReference<Result<Integer>> result = new AtomicReference<>();
+            fiberRunLoop(new Environment(sameThread(), executor, executor, Canceller::canceller), TWO_TICKS)
+                    .schedule(times(100, f -> f.bind(x -> fiber(() -> x + 1)), succeeded(0)), result::set);
+            assertEquals(success(100), result.get());
+            assertThat(submissions.get(), allOf(greaterThan(1), lessThan(20)));
+        }
+
+        @Test
+        public void exhaustedBudgetOnAnotherExecutorIsResubmitted() {
+            // runs inline rather than trampolining, so the pinned fiber runs inside the default executor's task
+            AtomicInteger pinnedSubmissions = new AtomicInteger();
+            Executor      pinned            = before(Runnable::run, __ -> pinnedSubmissions.incrementAndGet());
+            AtomicReference<Result<Integer>> result = new AtomicReference<>();
+            fiberRunLoop(new Environment(sameThread(), executor, executor, Canceller::canceller), TWO_TICKS)
+                    .schedule(pin(times(100, f -> f.bind(x -> fiber(() -> x + 1)), succeeded(0)), pinned),
+                              result::set);
+            assertEquals(success(100), result.get());
+            assertThat(pinnedSubmissions.get(), greaterThan(100));
+        }
+
+        @Test
+        @Timeout(value = 5, unit = SECONDS)
+        public void fibersQueuedBehindABlockedOneAreStolenByOtherWorkers() throws InterruptedException {
+            // resumed from inside one fiber's run, all four exhaust their budget on that worker, the blocking one first
+            ForkJoinPool   pool      = new ForkJoinPool(2, defaultForkJoinWorkerThreadFactory, null, true);
+            CountDownLatch suspended = new CountDownLatch(4);
+            CountDownLatch others    = new CountDownLatch(3);
+            CountDownLatch release   = new CountDownLatch(1);
+            try {
+                FiberRunLoop runLoop = fiberRunLoop(new Environment(sameThread(), pool, pool, Canceller::canceller),
+                                                    TWO_TICKS);
+                AtomicReferenceArray<Consumer<? super Result<Unit>>> callbacks = new AtomicReferenceArray<>(4);
+                for (int i = 0; i < 4; i++) {
+                    int n = i;
+                    runLoop.schedule(Fiber.<Unit>fiber(k -> {
+                        callbacks.set(n, k);
+                        suspended.countDown();
+                    }).bind(__ -> fiber(() -> {
+                        if (n == 0) {
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                throw throwChecked(e);
+                            }
+                        }
+                        return UNIT;
+                    })), __ -> {
+                        if (n != 0)
+                            others.countDown();
+                    });
+                }
+                suspended.await();
+                runLoop.schedule(fiber(() -> {
+                    for (int i = 0; i < 4; i++) {
+                        callbacks.get(i).accept(success(UNIT));
+                    }
+                    return UNIT;
+                }), __ -> {});
+                assertTrue(others.await(2, SECONDS));
+            } finally {
+                release.countDown();
+                pool.shutdownNow();
+            }
+        }
+
+        @Test
+        public void ticksAloneDecideWithoutATimeSlice() {
+            AtomicReference<Result<Integer>> result = new AtomicReference<>();
+            timeSliced(0).schedule(slowIncrements(50), result::set);
+            assertEquals(success(50), result.get());
+            assertEquals(1, submissions.get());
+        }
+
+        @Test
+        public void timeSliceEndsSlowRunsEarly() {
+            // the budget is per thread, so it may start out as high as whatever an earlier run on this one left it at
+            AtomicReference<Result<Integer>> result = new AtomicReference<>();
+            timeSliced(1_000).schedule(slowIncrements(1_000), result::set);
+            assertEquals(success(1_000), result.get());
+            assertThat(submissions.get(), greaterThan(100));
+        }
+
+        @Test
+        public void tickBudgetAdaptsToObservedSlices() {
+            FiberRunLoop runLoop = timeSliced(1_000);
+            runLoop.schedule(times(10_000, f -> f.bind(x -> fiber(() -> {
+                clock.addAndGet(100);
+                return x + 1;
+            })), succeeded(0)), __ -> {});
+            int afterFastRuns = runLoop.tickBudget();
+            assertThat(afterFastRuns, greaterThan(100));
+
+            runLoop.schedule(slowIncrements(100), __ -> {});
+            assertThat(runLoop.tickBudget(), lessThan(afterFastRuns));
+        }
+
+        @Test
+        public void tickBudgetCountsEveryRunResumedInASlice() {
+            // each run is cut off by maxTicksBeforePreemption well before the slice ends, so a slice spans several runs
+            // resumed one after another, all of which fit in it; counting only the current run's ticks against the
+            // whole slice's elapsed time would keep pulling the budget below maxTicksBeforePreemption
+            FiberRunLoop runLoop = timeSliced(1_000);
+            AtomicLong   sum     = new AtomicLong();
+            runLoop.schedule(times(20_000, f -> f.bind(x -> fiber(() -> {
+                clock.addAndGet(500);
+                if (x >= 10_000)
+                    sum.addAndGet(runLoop.tickBudget());
+                return x + 1;
+            })), succeeded(0)), __ -> {});
+            assertThat(sum.get() / 10_000, greaterThan(DEFAULT.maxTicksBeforePreemption() * 24L / 25));
+        }
+
+        private FiberRunLoop timeSliced(int timeSliceMicros) {
+            return fiberRunLoop(new Environment(sameThread(), executor, executor, Canceller::canceller),
+                                DEFAULT.withTimeSliceMicros(timeSliceMicros), clock::get);
+        }
+
+        private Fiber<Integer> slowIncrements(int n) {
+            return times(n, f -> f.bind(x -> fiber(() -> {
+                clock.addAndGet(200_000);
+                return x + 1;
+            })), succeeded(0));
+        }
+    }
+
+    @Nested
+    public class Instrumentation {
+
+        private CountingMetrics metrics;
+
+        @BeforeEach
+        public void setUp() {
+            metrics = countingMetrics();
+        }
+
+        @Test
+        public void countsTicksAndBindsOfCompletedFibers() {
+            // the left-associated chain is reassociated into a single bind; each inner bind is another
+            AtomicReference<Result<Integer>> result = new AtomicReference<>();
+            runLoop(Canceller::canceller, DEFAULT)
+                    .schedule(times(10, f -> f.bind(x -> succeeded(x).bind(y -> succeeded(y + 1))), succeeded(0)),
+                              result::set);
+            assertEquals(success(10), result.get());
+            assertEquals(11, metrics.reassociatedBinds());
+            assertThat(metrics.ticks(), greaterThan(20L));
+            assertEquals(1, metrics.fibersStarted());
+            assertEquals(0, metrics.inFlight());
+        }
+
+        @Test
+        public void countsSuspensions() {
+            runLoop(Canceller::canceller, DEFAULT)
+                    .schedule(fiber(k -> k.accept(success(1))).bind(x -> fiber(k -> k.accept(success(x)))),
+                              __ -> {});
+            assertEquals(2, metrics.suspensions());
+        }
+
+        @Test
+        public void fibersAreInFlightUntilTheirCallbackRuns() {
+            FiberRunLoop runLoop = runLoop(Canceller::canceller, DEFAULT);
+            runLoop.schedule(never(), __ -> {});
+            runLoop.schedule(succeeded(1), __ -> assertEquals(1, metrics.inFlight()));
+            assertEquals(2, metrics.fibersStarted());
+            assertEquals(1, metrics.inFlight());
+        }
+
+        @Test
+        public void countsPreemptions() {
+            runLoop(Canceller::canceller, DEFAULT.withMaxTicksBeforePreemption(2))
+                    .schedule(times(10, f -> f.bind(x -> succeeded(x + 1)), succeeded(0)), __ -> {});
+            assertThat(metrics.preemptions(), greaterThan(1L));
+        }
+
+        @Test
+        public void recordsFanOut() {
+            FiberRunLoop runLoop = runLoop(Canceller::canceller, DEFAULT);
+            runLoop.schedule(race(never(), succeeded(1), never()), __ -> {});
+            runLoop.schedule(parallel(succeeded(1), succeeded(2)), __ -> {});
+            runLoop.schedule(parallel(succeeded(1), succeeded(2), succeeded(3), succeeded(4)), __ -> {});
+            assertEquals(1, metrics.races());
+            assertEquals(3, metrics.largestRace());
+            assertEquals(2, metrics.parallels());
+            assertEquals(6, metrics.parallelFibers());
+            assertEquals(4, metrics.largestParallel());
+        }
+
+        @Test
+        public void countsObservedCancellationOncePerFiber() {
+            Canceller canceller = canceller();
+            canceller.cancel();
+            AtomicReference<Result<Integer>> result = new AtomicReference<>();
+            runLoop(() -> canceller, DEFAULT)
+                    .schedule(times(10, f -> f.bind(x -> succeeded(x + 1)), succeeded(0)), result::set);
+            assertEquals(cancellation(), result.get());
+            assertEquals(1, metrics.cancellations());
+        }
+
+        @Test
+        public void countsTimers() {
+            Canceller canceller = canceller();
+            FiberRunLoop fired = fiberRunLoop(new Environment((runnable, d, tu) -> {
+                runnable.run();
+                return () -> {};
+            }, sameThread(), sameThread(), Canceller::canceller).withMetrics(metrics), DEFAULT);
+            FiberRunLoop cancelled = fiberRunLoop(new Environment((runnable, d, tu) -> {
+                canceller.cancel();
+                return () -> {};
+            }, sameThread(), sameThread(), () -> canceller).withMetrics(metrics), DEFAULT);
+
+            fired.schedule(delay(succeeded(1), ofNanos(1)), __ -> {});
+            cancelled.schedule(delay(succeeded(1), ofNanos(1)), __ -> {});
+            assertEquals(2, metrics.timersScheduled());
+            assertEquals(1, metrics.timersFired());
+            assertEquals(1, metrics.timersCancelled());
+        }
+
+        @Test
+        public void countsATimerCancelledTwiceOnce() {
+            // the canceller's callback fires once the timer is scheduled, and delay's own recheck then sees it too
+            Canceller canceller = canceller();
+            Metrics cancelOnSchedule = new Metrics() {
+                @Override
+                public void timerScheduled() {
+                    metrics.timerScheduled();
+                    canceller.cancel();
+                }
+
+                @Override
+                public void timerCancelled() {
+                    metrics.timerCancelled();
+                }
+            };
+            fiberRunLoop(new Environment((runnable, d, tu) -> () -> {}, sameThread(), sameThread(), () -> canceller)
+                                 .withMetrics(cancelOnSchedule), DEFAULT)
+                    .schedule(delay(succeeded(1), ofNanos(1)), __ -> {});
+            assertEquals(1, metrics.timersScheduled());
+            assertEquals(1, metrics.timersCancelled());
+        }
+
+        @Test
+        public void doesNotCountAFiredTimerAsCancelled() {
+            // runs inline rather than trampolining, so the timer has fired by the time the canceller is cancelled
+            Canceller canceller = canceller();
+            Executor  inline    = Runnable::run;
+            fiberRunLoop(new Environment((runnable, d, tu) -> {
+                runnable.run();
+                canceller.cancel();
+                return () -> {};
+            }, inline, inline, () -> canceller).withMetrics(metrics), DEFAULT)
+                    .schedule(delay(succeeded(1), ofNanos(1)), __ -> {});
+            assertEquals(1, metrics.timersFired());
+            assertEquals(0, metrics.timersCancelled());
+        }
+
+        private FiberRunLoop runLoop(Supplier<Canceller> cancellerFactory, RuntimeSettings runtimeSettings) {
+            return fiberRunLoop(new Environment(sameThread(), sameThread(), sameThread(), cancellerFactory)
+                                        .withMetrics(metrics), runtimeSettings);
+        }
+    }
+
+    @Nested
+    public class AsyncStackTraces {
+
+        @Test
+        public void failuresCarryTheCallSitesTheyRanThrough() {
+            FiberRunLoop runLoop = runLoop(1);
+            Result<Integer> result = runLoop.runSync(succeeded(1)
+                                                             .bind(x -> fiber(() -> x + 1))
+                                                             .bind(x -> fiber(() -> {
+                                                                 throw new IllegalStateException("x: " + x);
+                                                             })));
+
+            StackTraceElement[] trace = asyncStackTrace(result);
+            assertThat(trace.length, greaterThan(1));
+            assertTrue(Arrays.stream(trace).allMatch(
+                    frame -> frame.getMethodName().contains("failuresCarryTheCallSitesTheyRanThrough")));
+        }
+
+        @Test
+        public void untracedFailuresAreLeftAlone() {
+            Result<Integer> result = runLoop(0).runSync(succeeded(1).bind(x -> fiber(() -> {
+                throw new IllegalStateException();
+            })));
+            assertEquals(0, ((Result.Failure<Integer>) result).reason().getSuppressed().length);
+        }
+
+        @Test
+        public void keepsOnlyTheMostRecentFrames() {
+            FiberRunLoop runLoop = runLoop(1);
+            Result<Integer> result = runLoop.runSync(times(100, f -> f.bind(x -> fiber(() -> x + 1)), succeeded(0))
+                                                             .bind(x -> failed(new IllegalStateException())));
+            assertThat(asyncStackTrace(result).length, lessThanOrEqualTo(32));
+        }
+
+        @Test
+        public void branchFailuresAreTracedOnce() {
+            FiberRunLoop runLoop = runLoop(1);
+            Result<List<Integer>> result = runLoop.runSync(parallel(succeeded(1), fiber(() -> {
+                throw new IllegalStateException();
+            })));
+            assertEquals(1, ((Result.Failure<List<Integer>>) result).reason().getSuppressed().length);
+        }
+
+        @Test
+        public void branchFailuresKeepTheTraceOfTheBranchTheyStartedIn() {
+            FiberRunLoop runLoop = runLoop(1);
+            Result<List<Integer>> result = runLoop.runSync(
+                    times(5, f -> f.bind(x -> fiber(() -> x + 1)), succeeded(0))
+                            .bind(x -> parallel(succeeded(x), fiber(() -> {
+                                throw new IllegalStateException();
+                            }))));
+            assertEquals(1, asyncStackTrace(result).length);
+        }
+
+        @Test
+        public void reusedFailuresCarryTheTraceOfTheirLatestFailure() {
+            FiberRunLoop          runLoop = runLoop(1);
+            IllegalStateException reused  = new IllegalStateException();
+            int first = asyncStackTrace(runLoop.runSync(succeeded(1).bind(x -> failed(reused)))).length;
+            Result<Integer> result = runLoop.runSync(times(5, f -> f.bind(x -> fiber(() -> x + 1)), succeeded(0))
+                                                             .bind(x -> failed(reused)));
+            assertThat(asyncStackTrace(result).length, greaterThan(first));
+        }
+
+        @Test
+        public void samplesOneInEveryNFibers() {
+            FiberRunLoop runLoop = runLoop(4);
+            int          traced  = 0;
+            for (int i = 0; i < 1_000; i++) {
+                Result<Integer> result = runLoop.runSync(failed(new IllegalStateException()));
+                if (((Result.Failure<Integer>) result).reason().getSuppressed().length == 1)
+                    traced++;
+            }
+            assertThat(traced, allOf(greaterThan(150), lessThan(350)));
+        }
+
+        @Test
+        public void sampledFailuresCarryTheLinesTheyRanThrough() {
+            FiberRunLoop        runLoop = runLoop(4);
+            StackTraceElement[] trace   = null;
+            for (int i = 0; i < 1_000 && trace == null; i++) {
+                Result<Integer> result = runLoop.runSync(succeeded(i)
+                                                                 .bind(x -> fiber(() -> x + 1))
+                                                                 .bind(x -> fiber(() -> {
+                                                                     throw new IllegalStateException("x: " + x);
+                                                                 })));
+                if (((Result.Failure<Integer>) result).reason().getSuppressed().length == 1)
+                    trace = asyncStackTrace(result);
+            }
+
+            assertNotNull(trace);
+            assertThat(trace.length, greaterThan(1));
+            assertTrue(Arrays.stream(trace).allMatch(frame -> "FiberRunLoopTest.java".equals(frame.getFileName())
+                    && frame.getLineNumber() > 0));
+        }
+
+        @Test
+        @Timeout(value = 10, unit = SECONDS)
+        public void stopsCapturingCallSitesOnceNoTracingRunLoopIsReachable() throws InterruptedException {
+            runLoop(1);
+            assertTrue(FiberTrace.capturingCallSites());
+            while (FiberTrace.capturingCallSites()) {
+                System.gc();
+                Thread.sleep(10);
+            }
+        }
+
+        private FiberRunLoop runLoop(int traceSampleRate) {
+            return fiberRunLoop(TEST_ENVIRONMENT, DEFAULT.withTraceSampleRate(traceSampleRate));
+        }
+
+        private static StackTraceElement[] asyncStackTrace(Result<?> result) {
+            Throwable[] suppressed = ((Result.Failure<?>) result).reason().getSuppressed();
+            assertEquals(1, suppressed.length);
+            assertThat(suppressed[0], instanceOf(FiberTrace.AsyncStackTrace.class));
+            return suppressed[0].getStackTrace();
+        }
+    }
+
     @Nested
     public class Forever {
 
@@ -261,6 +797,22 @@ public class FiberRunLoopTest {
             assertFalse(loserExecuted.get());
         }
 
+        @Test
+        public void valueWinsWithoutSchedulingOtherFibers() {
+            List<String> interactions = new ArrayList<>();
+            assertThat(race(fiber(() -> interactions.add("1")), succeeded(true), fiber(() -> interactions.add("3"))),
+                       yieldsResult(before(sameThread(), __ -> interactions.add("schedule")), equalTo(success(true))));
+            assertEquals(singletonList("schedule"), interactions);
+        }
+
+        @Test
+        public void firstFiberWinningInlineSkipsSchedulingTheRest() {
+            List<String> interactions = new ArrayList<>();
+            assertThat(race(fiber(() -> interactions.add("1")), fiber(() -> interactions.add("2"))),
+                       yieldsResult(before(sameThread(), __ -> interactions.add("schedule")), equalTo(success(true))));
+            assertEquals(asList("schedule", "1"), interactions);
+        }
+
         @Test
         public void usesChildCanceller() {
             Canceller canceller = canceller();
@@ -295,6 +847,23 @@ public class FiberRunLoopTest {
 
         @Test
         public void delayCallbackWiresIntoCancellation() {
+            Canceller      canceller      = canceller();
+            Fiber<Integer> delay          = delay(succeeded(1), ofNanos(1));
+            AtomicBoolean  callbackCalled = new AtomicBoolean(false);
+            assertThat(delay, yieldsResult(
+                    (runnable, d, tu) -> {
+                        new Thread(canceller::cancel).start();
+                        return () -> {
+                            if (!callbackCalled.getAndSet(true))
+                                runnable.run();
+                        };
+                    }, canceller, equalTo(cancellation())
+            ));
+            assertTrue(callbackCalled.get());
+        }
+
+        @Test
+        public void firedDelaysDeregisterTheirCancelCallback() {
             Canceller      canceller      = canceller();
             Fiber<Integer> delay          = delay(succeeded(1), ofNanos(1));
             AtomicBoolean  callbackCalled = new AtomicBoolean(false);
@@ -304,9 +873,33 @@ public class FiberRunLoopTest {
                         return () -> callbackCalled.set(true);
                     }, canceller, equalTo(success(1))
             ));
-            assertFalse(callbackCalled.get());
             canceller.cancel();
-            assertTrue(callbackCalled.get());
+            assertFalse(callbackCalled.get());
+        }
+
+        @Test
+        @Timeout(value = 10, unit = SECONDS)
+        public void delaysInALoopDoNotAccumulateCancelCallbacks() {
+            Canceller     canceller        = canceller();
+            AtomicInteger iterations       = new AtomicInteger(0);
+            AtomicInteger maxRegistrations = new AtomicInteger(0);
+            Fiber<Unit> loop = forever(delay(succeeded(UNIT), ofNanos(1))
+                                               .bind(__ -> {
+                                                   int i = iterations.incrementAndGet();
+                                                   if (i % 100 == 0)
+                                                       maxRegistrations.accumulateAndGet(
+                                                               canceller.registrations(), Math::max);
+                                                   return i == 100_000 ? cancelled() : succeeded(UNIT);
+                                               }));
+
+            assertThat(loop, yieldsResult(
+                    (runnable, d, tu) -> {
+                        commonPool().execute(runnable);
+                        return () -> {};
+                    }, canceller, equalTo(cancellation())
+            ));
+            assertEquals(100_000, iterations.get());
+            assertThat(maxRegistrations.get(), lessThanOrEqualTo(128));
         }
 
         @Test
@@ -373,6 +966,74 @@ public class FiberRunLoopTest {
         }
     }
 
+    @Nested
+    public class Blocking {
+        private static final RuntimeSettings THUNKS_AS_BLOCKING = DEFAULT.withTreatThunksAsBlocking(true);
+
+        private List<String> interactions;
+
+        private final Executor eventLoop = before(sameThread(), __ -> interactions.add("on event loop"));
+        private final Executor blocking  = before(sameThread(), __ -> interactions.add("on blocking"));
+
+        @BeforeEach
+        public void setUp() {
+            interactions = new ArrayList<>();
+        }
+
+        @Test
+        public void runsOnBlockingExecutorThenResumesOnEventLoop() {
+            assertEquals(success(), run(DEFAULT, fiber((Runnable) () -> interactions.add("before"))
+                    .bind(__ -> blocking((Runnable) () -> interactions.add("blocking")))
+                    .bind(__ -> fiber((Runnable) () -> interactions.add("after")))));
+            assertEquals(asList("on event loop",
+                                "before",
+                                "on blocking",
+                                "blocking",
+                                "on event loop",
+                                "after"),
+                         interactions);
+        }
+
+        @Test
+        public void thunksRunOnEventLoopByDefault() {
+            assertEquals(success(), run(DEFAULT, fiber((Runnable) () -> interactions.add("thunk"))));
+            assertEquals(asList("on event loop", "thunk"), interactions);
+        }
+
+        @Test
+        public void thunksCanBeTreatedAsBlocking() {
+            assertEquals(success(), run(THUNKS_AS_BLOCKING, fiber((Runnable) () -> interactions.add("thunk"))
+                    .bind(__ -> Fiber.<Unit>fiber(k -> {
+                        interactions.add("callback");
+                        k.accept(success());
+                    }))));
+            assertEquals(asList("on event loop",
+                                "on blocking",
+                                "thunk",
+                                "on event loop",
+                                "callback"),
+                         interactions);
+        }
+
+        @Test
+        public void runSyncCallerThreadRunsBlockingWorkInPlace() {
+            RuntimeSettings onCallerThread = DEFAULT.withRunSyncOnCallerThread(true).withTreatThunksAsBlocking(true);
+            Thread caller = Thread.currentThread();
+            assertEquals(success(caller),
+                         fiberRunLoop(new Environment(sameThread(), eventLoop, blocking, Canceller::canceller),
+                                      onCallerThread)
+                                 .runSync(blocking(Thread::currentThread).bind(__ -> fiber(Thread::currentThread))));
+            assertEquals(emptyList(), interactions);
+        }
+
+        private <A> Result<A> run(RuntimeSettings runtimeSettings, Fiber<A> fiber) {
+            AtomicReference<Result<A>> result = new AtomicReference<>();
+            fiberRunLoop(new Environment(sameThread(), eventLoop, blocking, Canceller::canceller), runtimeSettings)
+                    .schedule(fiber, result::set);
+            return result.get();
+        }
+    }
+
     @Nested
     public class Parallel {
 
@@ -380,7 +1041,7 @@ public class FiberRunLoopTest {
         public class Success {
 
             @Test
-            public void runsEachFiberOnScheduler() {
+            public void runsFirstFiberInlineAndTheRestOnScheduler() {
                 List<String> interactions = new ArrayList<>();
                 assertThat(parallel(fiber(() -> {
                                         interactions.add("1");
@@ -396,7 +1057,29 @@ public class FiberRunLoopTest {
                                     })),
                            yieldsResult(before(sameThread(), __ -> interactions.add("schedule")),
                                         equalTo(success(asList(1, 2, 3)))));
-                assertEquals(asList("schedule", "schedule", "schedule", "schedule", "1", "2", "3"), interactions);
+                assertEquals(asList("schedule", "1", "schedule", "schedule", "2", "3"), interactions);
+            }
+
+            @Test
+            public void resultsAreImmutable() {
+                AtomicReference<List<Integer>> results = new AtomicReference<>();
+                assertThat(parallel(fiber(() -> 1), succeeded(2)).bind(xs -> {
+                               results.set(xs);
+                               return succeeded(xs);
+                           }),
+                           yieldsResult(success(asList(1, 2))));
+                assertThrows(UnsupportedOperationException.class, () -> results.get().set(0, 3));
+                assertThrows(UnsupportedOperationException.class, () -> results.get().add(3));
+                assertEquals(asList(1, 2), results.get());
+            }
+
+            @Test
+            public void valuesAreJoinedWithoutScheduling() {
+                List<String> interactions = new ArrayList<>();
+                assertThat(parallel(succeeded(1), succeeded(2), succeeded(3)),
+                           yieldsResult(before(sameThread(), __ -> interactions.add("schedule")),
+                                        equalTo(success(asList(1, 2, 3)))));
+                assertEquals(singletonList("schedule"), interactions);
             }
 
             @Test
@@ -407,6 +1090,27 @@ public class FiberRunLoopTest {
                            yieldsResult(success(asList(1, 2, 3))));
             }
 
+            @Test
+            @Timeout(value = 10, unit = SECONDS)
+            public void completedChildrenDetachFromTheParentCanceller() {
+                Canceller     canceller        = canceller();
+                AtomicInteger iterations       = new AtomicInteger(0);
+                AtomicInteger maxRegistrations = new AtomicInteger(0);
+                Fiber<Unit> loop = forever(parallel(fiber(() -> 1), fiber(() -> 2))
+                                                   .bind(__ -> race(fiber(() -> 3), never()))
+                                                   .bind(__ -> {
+                                                       int i = iterations.incrementAndGet();
+                                                       if (i % 1_000 == 0)
+                                                           maxRegistrations.accumulateAndGet(
+                                                                   canceller.registrations(), Math::max);
+                                                       return i == 1_000_000 ? cancelled() : succeeded(UNIT);
+                                                   }));
+
+                assertThat(loop, yieldsResult(canceller, equalTo(cancellation())));
+                assertEquals(1_000_000, iterations.get());
+                assertThat(maxRegistrations.get(), lessThanOrEqualTo(128));
+            }
+
             @Test
             public void parentCancellationBeforeRunPreemptsRun() {
                 Canceller canceller = canceller();
@@ -463,6 +1167,137 @@ public class FiberRunLoopTest {
             }
         }
 
+        @Nested
+        public class Bounded {
+
+            @Test
+            public void keepsAtMostMaxConcurrencyFibersInFlight() {
+                List<Consumer<? super Result<Integer>>> inFlight = new ArrayList<>();
+                List<Fiber<Integer>>                    fibers   = new ArrayList<>();
+                AtomicReference<Result<List<Integer>>>  result   = new AtomicReference<>();
+                for (int i = 0; i < 5; i++) {
+                    fibers.add(fiber(inFlight::add));
+                }
+                fiberRunLoop(TEST_ENVIRONMENT, DEFAULT).schedule(parallel(2, fibers), result::set);
+
+                for (int i = 0; i < 5; i++) {
+                    assertEquals(Math.min(2, 5 - i), inFlight.size());
+                    inFlight.remove(inFlight.size() - 1).accept(success(i));
+                }
+                assertEquals(success(List.of(4, 0, 1, 2, 3)), result.get());
+            }
+
+            @Test
+            public void preservesResultOrdering() {
+                List<Fiber<Integer>> fibers = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    fibers.add(succeeded(i));
+                }
+                assertThat(parallel(3, fibers), yieldsResult(equalTo(success(new ArrayList<>() {{
+                    for (int i = 0; i < 100; i++) add(i);
+                }}))));
+            }
+
+            @Test
+            public void failureStopsStartingPendingFibers() {
+                List<String> interactions = new ArrayList<>();
+                assertThat(parallel(1, List.of(fiber(() -> interactions.add("a")),
+                                               failed(CAUSE),
+                                               fiber(() -> interactions.add("c")))),
+                           yieldsResult(failure(CAUSE)));
+                assertEquals(singletonList("a"), interactions);
+            }
+
+            @Test
+            public void maxConcurrencyMustBePositive() {
+                assertThrows(IllegalArgumentException.class, () -> parallel(0, List.of(succeeded(1))));
+            }
+        }
+
+        @Nested
+        public class ForEach {
+
+            @Test
+            public void streamsEachResultWithItsIndex() {
+                List<String> interactions = new ArrayList<>();
+                assertThat(parallelForEach(List.of(fiber(() -> "a"), succeeded("b"), fiber(() -> "c")),
+                                           (x, i) -> interactions.add(i + x)),
+                           yieldsResult(success(UNIT)));
+                assertEquals(asList("0a", "1b", "2c"), interactions);
+            }
+
+            @Test
+            public void boundedVariantKeepsAtMostMaxConcurrencyFibersInFlight() {
+                List<Consumer<? super Result<Integer>>> inFlight = new ArrayList<>();
+                List<Fiber<Integer>>                    fibers   = new ArrayList<>();
+                List<Integer>                           streamed = new ArrayList<>();
+                AtomicReference<Result<Unit>>           result   = new AtomicReference<>();
+                for (int i = 0; i < 3; i++) {
+                    fibers.add(fiber(inFlight::add));
+                }
+                fiberRunLoop(TEST_ENVIRONMENT, DEFAULT)
+                        .schedule(parallelForEach(2, fibers, (x, i) -> streamed.add(x)), result::set);
+
+                assertEquals(2, inFlight.size());
+                inFlight.remove(0).accept(success(1));
+                assertEquals(2, inFlight.size());
+                inFlight.remove(0).accept(success(2));
+                inFlight.remove(0).accept(success(3));
+                assertEquals(asList(1, 2, 3), streamed);
+                assertEquals(success(UNIT), result.get());
+            }
+
+            @Test
+            public void consumerFailureFailsTheParallel() {
+                List<String> interactions = new ArrayList<>();
+                assertThat(parallelForEach(List.of(fiber(() -> "a"), fiber(() -> "b")),
+                                           (x, i) -> {
+                                               interactions.add(x);
+                                               throw CAUSE;
+                                           }),
+                           yieldsResult(failure(CAUSE)));
+                assertEquals(singletonList("a"), interactions);
+            }
+
+            @Test
+            public void fiberFailureFailsTheParallel() {
+                assertThat(parallelForEach(List.of(fiber(() -> "a"), failed(CAUSE)), (x, i) -> {}),
+                           yieldsResult(failure(CAUSE)));
+            }
+        }
+
+        @Nested
+        public class Zip {
+
+            @Test
+            public void combinesResultsOfDifferentTypes() {
+                assertThat(zip(fiber(() -> 1), fiber(() -> "two"), succeeded(3.0), (a, b, c) -> a + b + c),
+                           yieldsResult(success("1two3.0")));
+            }
+
+            @Test
+            public void supportsUpToEightFibers() {
+                assertThat(zip(fiber(() -> 1), succeeded('b'), fiber(() -> "c"), succeeded(4L),
+                               fiber(() -> 5.0), succeeded(true), fiber(() -> 7), succeeded("h"),
+                               (a, b, c, d, e, f, g, h) -> "" + a + b + c + d + e + f + g + h),
+                           yieldsResult(success("1bc45.0true7h")));
+            }
+
+            @Test
+            public void failureClobbersResultAndCancelsOtherFibers() {
+                List<String> interactions = new ArrayList<>();
+                assertThat(zip(failed(CAUSE), fiber(() -> interactions.add("b")), (a, b) -> b),
+                           yieldsResult(failure(CAUSE)));
+                assertEquals(emptyList(), interactions);
+            }
+
+            @Test
+            public void cancellationClobbersResult() {
+                assertThat(zip(fiber(() -> 1), cancelled(), (a, b) -> a),
+                           yieldsResult(cancellation()));
+            }
+        }
+
         @Nested
         public class Failure {
 
@@ -0,0 +1,230 @@
+package com.jnape.palatable.lambda.effect.io.fiber;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.fiber;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.parallel;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberScheduler.fiberScheduler;
+import static com.jnape.palatable.lambda.effect.io.fiber.Result.success;
+import static com.jnape.palatable.lambda.effect.io.fiber.testsupport.matcher.FiberResultMatcher.yieldsResult;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(10)
+public class FiberSchedulerTest {
+
+    private FiberScheduler scheduler;
+
+    @AfterEach
+    public void tearDown() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    @Nested
+    public class Execution {
+
+        @Test
+        public void runsExternallySubmittedTasks() throws InterruptedException {
+            scheduler = fiberScheduler(4, "test-");
+            CountDownLatch latch = new CountDownLatch(10_000);
+            for (int i = 0; i < 10_000; i++) {
+                scheduler.execute(latch::countDown);
+            }
+            assertTrue(latch.await(5, SECONDS));
+        }
+
+        @Test
+        public void workersAreNamedDaemons() throws InterruptedException {
+            scheduler = fiberScheduler(2, "test-");
+            CountDownLatch latch  = new CountDownLatch(1);
+            Thread[]       thread = new Thread[1];
+            scheduler.execute(() -> {
+                thread[0] = Thread.currentThread();
+                latch.countDown();
+            });
+            assertTrue(latch.await(5, SECONDS));
+            assertThat(thread[0].getName(), startsWith("test-"));
+            assertTrue(thread[0].isDaemon());
+        }
+
+        @Test
+        public void lastWokenTaskRunsNext() throws InterruptedException {
+            scheduler = fiberScheduler(1, "test-");
+            List<String>   order = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(3);
+            scheduler.execute(() -> {
+                scheduler.execute(() -> {
+                    order.add("first");
+                    latch.countDown();
+                });
+                scheduler.execute(() -> {
+                    order.add("second");
+                    latch.countDown();
+                });
+                scheduler.execute(() -> {
+                    order.add("third");
+                    latch.countDown();
+                });
+            });
+            assertTrue(latch.await(5, SECONDS));
+            assertEquals(asList("third", "first", "second"), order);
+        }
+
+        @Test
+        public void queuedWorkIsStolenFromABusyWorker() throws InterruptedException {
+            scheduler = fiberScheduler(2, "test-");
+            CountDownLatch stolen = new CountDownLatch(2);
+            CountDownLatch done   = new CountDownLatch(1);
+            scheduler.execute(() -> {
+                scheduler.execute(stolen::countDown);
+                scheduler.execute(stolen::countDown);
+                scheduler.execute(() -> {});
+                try {
+                    if (stolen.await(5, SECONDS))
+                        done.countDown();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            assertTrue(done.await(5, SECONDS));
+        }
+
+        @Test
+        public void slotIsStolenFromAWorkerStuckInItsCurrentTask() throws InterruptedException {
+            scheduler = fiberScheduler(2, "test-");
+            CountDownLatch stolen = new CountDownLatch(1);
+            CountDownLatch done   = new CountDownLatch(1);
+            scheduler.execute(() -> {
+                scheduler.execute(stolen::countDown);
+                try {
+                    if (stolen.await(5, SECONDS))
+                        done.countDown();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            assertTrue(done.await(5, SECONDS));
+        }
+
+        @Test
+        public void localOverflowSpillsToSharedQueue() throws InterruptedException {
+            scheduler = fiberScheduler(1, "test-");
+            CountDownLatch latch = new CountDownLatch(10_000);
+            scheduler.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    scheduler.execute(latch::countDown);
+                }
+            });
+            assertTrue(latch.await(5, SECONDS));
+        }
+
+        @Test
+        public void survivesFailingTasks() throws InterruptedException {
+            scheduler = fiberScheduler(1, "test-");
+            CountDownLatch latch = new CountDownLatch(1);
+            scheduler.execute(() -> {
+                throw new IllegalStateException("expected");
+            });
+            scheduler.execute(latch::countDown);
+            assertTrue(latch.await(5, SECONDS));
+        }
+
+        @Test
+        public void parallelismMustBePositive() {
+            assertThrows(IllegalArgumentException.class, () -> fiberScheduler(0, "test-"));
+        }
+    }
+
+    @Nested
+    public class Shutdown {
+
+        @Test
+        public void rejectsNewTasksAndTerminates() throws InterruptedException {
+            scheduler = fiberScheduler(2, "test-");
+            scheduler.shutdown();
+            assertTrue(scheduler.isShutdown());
+            assertThrows(RejectedExecutionException.class, () -> scheduler.execute(() -> {}));
+            assertTrue(scheduler.awaitTermination(5, SECONDS));
+            assertTrue(scheduler.isTerminated());
+        }
+
+        @Test
+        public void drainsQueuedTasksBeforeTerminating() throws InterruptedException {
+            scheduler = fiberScheduler(1, "test-");
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch drained = new CountDownLatch(100);
+            scheduler.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            for (int i = 0; i < 100; i++) {
+                scheduler.execute(drained::countDown);
+            }
+            assertTrue(started.await(5, SECONDS));
+            scheduler.shutdown();
+            assertFalse(scheduler.isTerminated());
+            release.countDown();
+            assertTrue(scheduler.awaitTermination(5, SECONDS));
+            assertEquals(0, drained.getCount());
+        }
+
+        @Test
+        public void shutdownNowReturnsTasksQueuedOnWorkers() throws InterruptedException {
+            scheduler = fiberScheduler(1, "test-");
+            Runnable       first   = () -> {};
+            Runnable       second  = () -> {};
+            CountDownLatch queued  = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            scheduler.execute(() -> {
+                scheduler.execute(first);
+                scheduler.execute(second);
+                queued.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            assertTrue(queued.await(5, SECONDS));
+            List<Runnable> pending = scheduler.shutdownNow();
+            release.countDown();
+            assertEquals(asList(first, second), pending);
+            assertTrue(scheduler.awaitTermination(5, SECONDS));
+        }
+    }
+
+    @Nested
+    public class RunningFibers {
+
+        @Test
+        public void runsParallelFibers() {
+            scheduler = fiberScheduler(4, "test-");
+            List<Fiber<Integer>> fibers   = new ArrayList<>();
+            List<Integer>        expected = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                int n = i;
+                fibers.add(fiber(() -> n));
+                expected.add(n);
+            }
+            assertThat(parallel(fibers), yieldsResult(scheduler, equalTo(success(expected))));
+        }
+    }
+}
@@ -90,6 +90,21 @@ public class FiberTest {
         }
     }
 
+    @Nested
+    public class Bind {
+
+        @Test
+        public void bindingABindAppendsRatherThanNests() {
+            Fiber<Integer> fiber = succeeded(1);
+            Fiber<Integer> bound = fiber.bind(x -> succeeded(x + 1)).bind(x -> succeeded(x * 2));
+
+            com.jnape.palatable.lambda.effect.io.fiber.Bind<?, Integer> bind =
+                    (com.jnape.palatable.lambda.effect.io.fiber.Bind<?, Integer>) bound;
+            assertSame(fiber, bind.fiberZ());
+            assertEquals(2, bind.arrows().size());
+        }
+    }
+
     @Nested
     public class Race {
 
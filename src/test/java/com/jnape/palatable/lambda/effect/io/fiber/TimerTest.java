@@ -1,20 +1,52 @@
 package com.jnape.palatable.lambda.effect.io.fiber;
 
+import com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings;
+import com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.delay;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.Timer.coalescingTimer;
+import static com.jnape.palatable.lambda.effect.io.fiber.Timer.hashedWheelTimer;
 import static com.jnape.palatable.lambda.effect.io.fiber.Timer.timer;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -51,4 +83,326 @@ public class TimerTest {
         }
 
     }
-}
\ No newline at end of file
+
+    @Nested
+    @ExtendWith(MockitoExtension.class)
+    public class Coalescing {
+        @Mock ScheduledExecutorService scheduledExecutorService;
+
+        private Runnable scheduledWakeup(int times) {
+            ArgumentCaptor<Runnable> wakeup = ArgumentCaptor.forClass(Runnable.class);
+            verify(scheduledExecutorService, times(times)).schedule(wakeup.capture(), anyLong(), eq(NANOSECONDS));
+            return wakeup.getValue();
+        }
+
+        @Test
+        public void delaysWithinSlackShareOneWakeup() {
+            Timer          timer       = coalescingTimer(scheduledExecutorService, 1, HOURS);
+            List<Runnable> submissions = new ArrayList<>();
+            Executor       executor    = submissions::add;
+            List<String>   ran         = new ArrayList<>();
+            timer.delay(() -> ran.add("first"), 0, MILLISECONDS, executor);
+            timer.delay(() -> ran.add("second"), 1, MILLISECONDS, executor);
+
+            scheduledWakeup(1).run();
+            assertEquals(2, submissions.size());
+            submissions.forEach(Runnable::run);
+            assertEquals(List.of("first", "second"), ran);
+        }
+
+        @Test
+        public void tasksExpiringTogetherOnAForkJoinPoolRunInParallel() throws Exception {
+            Timer        timer = coalescingTimer(scheduledExecutorService, 1, HOURS);
+            ForkJoinPool pool  = new ForkJoinPool(2);
+            try {
+                CountDownLatch bothRunning = new CountDownLatch(2);
+                CountDownLatch done        = new CountDownLatch(2);
+                AtomicInteger  met         = new AtomicInteger(0);
+                Runnable rendezvous = () -> {
+                    bothRunning.countDown();
+                    try {
+                        if (bothRunning.await(5, SECONDS))
+                            met.incrementAndGet();
+                    } catch (InterruptedException ignored) {
+                    }
+                    done.countDown();
+                };
+                timer.delay(rendezvous, 0, MILLISECONDS, pool);
+                timer.delay(rendezvous, 0, MILLISECONDS, pool);
+
+                scheduledWakeup(1).run();
+                assertTrue(done.await(10, SECONDS));
+                assertEquals(2, met.get());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        @Test
+        public void cancelledEntriesAreSkipped() {
+            Timer         timer     = coalescingTimer(scheduledExecutorService, 1, HOURS);
+            AtomicBoolean cancelled = new AtomicBoolean(false);
+            AtomicBoolean kept      = new AtomicBoolean(false);
+            timer.delay(() -> cancelled.set(true), 0, MILLISECONDS).run();
+            timer.delay(() -> kept.set(true), 0, MILLISECONDS);
+
+            scheduledWakeup(1).run();
+            assertFalse(cancelled.get());
+            assertTrue(kept.get());
+        }
+
+        @Test
+        public void delaysAfterABucketFiresStartANewOne() {
+            Timer         timer = coalescingTimer(scheduledExecutorService, 1, HOURS);
+            AtomicInteger ran   = new AtomicInteger(0);
+            timer.delay(ran::incrementAndGet, 0, MILLISECONDS);
+            scheduledWakeup(1).run();
+
+            timer.delay(ran::incrementAndGet, 0, MILLISECONDS);
+            scheduledWakeup(2).run();
+            assertEquals(2, ran.get());
+        }
+
+        @Test
+        public void neverFiresEarly() throws InterruptedException {
+            ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor();
+            try {
+                Timer          timer = coalescingTimer(scheduler, 5, MILLISECONDS);
+                CountDownLatch latch = new CountDownLatch(1);
+                long           start = nanoTime();
+                timer.delay(latch::countDown, 20, MILLISECONDS);
+                assertTrue(latch.await(5, SECONDS));
+                assertThat(nanoTime() - start, greaterThanOrEqualTo(MILLISECONDS.toNanos(20)));
+            } finally {
+                scheduler.shutdownNow();
+            }
+        }
+
+        @Test
+        public void slackMustBePositive() {
+            assertThrows(IllegalArgumentException.class,
+                         () -> coalescingTimer(scheduledExecutorService, 0, MILLISECONDS));
+        }
+    }
+
+    @Nested
+    public class Sharded {
+        private ShardedTimer timer;
+
+        @BeforeEach
+        public void setUp() {
+            timer = ShardedTimer.shardedTimer(r -> new Thread(r) {{ setDaemon(true); }}, 2, 1, MILLISECONDS, 8);
+        }
+
+        @Test
+        public void delaysFromOutsideTheEventLoopAreDrainedByTheTicker() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(1);
+            long           start = nanoTime();
+            timer.delay(latch::countDown, 20, MILLISECONDS);
+            assertTrue(latch.await(5, SECONDS));
+            assertThat(nanoTime() - start, greaterThanOrEqualTo(MILLISECONDS.toNanos(20)));
+        }
+
+        @Test
+        public void cancelledTasksDoNotRun() throws InterruptedException {
+            AtomicBoolean  ran   = new AtomicBoolean(false);
+            CountDownLatch latch = new CountDownLatch(1);
+            timer.delay(() -> ran.set(true), 10, MILLISECONDS).run();
+            timer.delay(latch::countDown, 30, MILLISECONDS);
+            assertTrue(latch.await(5, SECONDS));
+            assertFalse(ran.get());
+        }
+
+        @Test
+        public void busyWorkersExpireTheirOwnTimeoutsInPlace() throws Exception {
+            ShardedTimer coarse = ShardedTimer.shardedTimer(r -> new Thread(r) {{ setDaemon(true); }}, 2, 50,
+                                                            MILLISECONDS, 8);
+            ForkJoinPool pool   = new ForkJoinPool(1, coarse::newWorker, null, true);
+            try {
+                AtomicBoolean polling = new AtomicBoolean(false);
+                AtomicBoolean inPlace = new AtomicBoolean(false);
+                AtomicBoolean ran     = new AtomicBoolean(false);
+                pool.submit(() -> {
+                    Thread worker = Thread.currentThread();
+                    coarse.delay(() -> {
+                        inPlace.set(polling.get() && Thread.currentThread() == worker);
+                        ran.set(true);
+                    }, 5, MILLISECONDS, pool);
+                    long deadline = nanoTime() + SECONDS.toNanos(5);
+                    while (!ran.get() && nanoTime() < deadline) {
+                        polling.set(true);
+                        coarse.pollExpired();
+                        polling.set(false);
+                    }
+                }).get();
+                assertTrue(ran.get());
+                assertTrue(inPlace.get());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        @Test
+        public void fiberSchedulerWorkersExpireTheirOwnTimeoutsInPlace() throws Exception {
+            ShardedTimer coarse = ShardedTimer.shardedTimer(r -> new Thread(r) {{ setDaemon(true); }}, 2, 50,
+                                                            MILLISECONDS, 8);
+            FiberScheduler scheduler = FiberScheduler.fiberScheduler(1, "test-", coarse::claimShard);
+            try {
+                AtomicBoolean polling = new AtomicBoolean(false);
+                AtomicBoolean inPlace = new AtomicBoolean(false);
+                AtomicBoolean ran     = new AtomicBoolean(false);
+                scheduler.submit(() -> {
+                    Thread worker = Thread.currentThread();
+                    coarse.delay(() -> {
+                        inPlace.set(polling.get() && Thread.currentThread() == worker);
+                        ran.set(true);
+                    }, 5, MILLISECONDS, scheduler);
+                    long deadline = nanoTime() + SECONDS.toNanos(5);
+                    while (!ran.get() && nanoTime() < deadline) {
+                        polling.set(true);
+                        coarse.pollExpired();
+                        polling.set(false);
+                    }
+                }).get();
+                assertTrue(ran.get());
+                assertTrue(inPlace.get());
+            } finally {
+                scheduler.shutdownNow();
+            }
+        }
+
+        @Test
+        public void delayedFibersResumeOnTheEventLoop() {
+            Environment environment = Environment.fromSettings(
+                    new EnvironmentSettings(false, EnvironmentSettings.TimerStrategy.SHARDED, 1000, 1000,
+                                            EnvironmentSettings.VirtualThreads.NONE,
+                                            EnvironmentSettings.EventLoop.FORK_JOIN_POOL));
+            FiberRunLoop runLoop = fiberRunLoop(environment, RuntimeSettings.DEFAULT);
+            Fiber<String> fiber = delay(Fiber.<String>fiber(() -> Thread.currentThread().getName()),
+                                        Duration.ofMillis(5));
+            Result<String> result = runLoop.runSync(fiber.bind(name -> delay(succeeded(name), Duration.ofMillis(5))));
+            assertThat(result, instanceOf(Result.Success.class));
+            assertThat(((Result.Success<String>) result).value(), startsWith("lambda-io-event-loop"));
+        }
+
+        @Test
+        public void shardsMustBePositive() {
+            assertThrows(IllegalArgumentException.class,
+                         () -> ShardedTimer.shardedTimer(Thread::new, 0, 1, MILLISECONDS, 8));
+        }
+    }
+
+    @Nested
+    public class HashedWheel {
+        private Timer timer;
+
+        @BeforeEach
+        public void setUp() {
+            timer = hashedWheelTimer(r -> new Thread(r) {{ setDaemon(true); }}, 1, MILLISECONDS, 8);
+        }
+
+        @Test
+        public void runsTaskAfterDelay() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(1);
+            long           start = nanoTime();
+            timer.delay(latch::countDown, 20, MILLISECONDS);
+            assertTrue(latch.await(5, SECONDS));
+            assertThat(nanoTime() - start, greaterThanOrEqualTo(MILLISECONDS.toNanos(20)));
+        }
+
+        @Test
+        public void delaysLongerThanOneRotationWaitForTheirRound() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(1);
+            long           start = nanoTime();
+            timer.delay(latch::countDown, 50, MILLISECONDS);
+            assertTrue(latch.await(5, SECONDS));
+            assertThat(nanoTime() - start, greaterThanOrEqualTo(MILLISECONDS.toNanos(50)));
+        }
+
+        @Test
+        public void zeroDelayRunsOnNextTick() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(1);
+            timer.delay(latch::countDown, 0, MILLISECONDS);
+            assertTrue(latch.await(5, SECONDS));
+        }
+
+        @Test
+        public void cancelledTasksDoNotRun() throws InterruptedException {
+            AtomicBoolean  ran   = new AtomicBoolean(false);
+            CountDownLatch latch = new CountDownLatch(1);
+            timer.delay(() -> ran.set(true), 10, MILLISECONDS).run();
+            timer.delay(latch::countDown, 30, MILLISECONDS);
+            assertTrue(latch.await(5, SECONDS));
+            assertFalse(ran.get());
+        }
+
+        @Test
+        public void cancellingAfterExpiryIsANoop() throws InterruptedException {
+            CountDownLatch latch  = new CountDownLatch(1);
+            Runnable       cancel = timer.delay(latch::countDown, 1, MILLISECONDS);
+            assertTrue(latch.await(5, SECONDS));
+            cancel.run();
+            cancel.run();
+        }
+
+        @Test
+        public void manyTimeoutsAllFire() throws InterruptedException {
+            int            n     = 10_000;
+            CountDownLatch latch = new CountDownLatch(n);
+            for (int i = 0; i < n; i++) {
+                timer.delay(latch::countDown, i % 40, MILLISECONDS);
+            }
+            assertTrue(latch.await(5, SECONDS));
+        }
+
+        @Test
+        public void failingTaskDoesNotStopTheTimer() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(1);
+            timer.delay(() -> {throw new IllegalStateException("kaboom");}, 1, MILLISECONDS);
+            timer.delay(latch::countDown, 10, MILLISECONDS);
+            assertTrue(latch.await(5, SECONDS));
+        }
+
+        @Test
+        public void resumesAfterIdling() throws InterruptedException {
+            CountDownLatch first = new CountDownLatch(1);
+            timer.delay(first::countDown, 1, MILLISECONDS);
+            assertTrue(first.await(5, SECONDS));
+            Thread.sleep(20);
+            CountDownLatch second = new CountDownLatch(1);
+            timer.delay(second::countDown, 1, MILLISECONDS);
+            assertTrue(second.await(5, SECONDS));
+        }
+
+        @Test
+        public void timeoutsExpiringOnTheSameTickShareOneSubmission() throws InterruptedException {
+            Timer          coarse      = hashedWheelTimer(r -> new Thread(r) {{ setDaemon(true); }}, 1, SECONDS, 8);
+            AtomicInteger  submissions = new AtomicInteger(0);
+            CountDownLatch latch       = new CountDownLatch(3);
+            ForkJoinPool   pool        = new ForkJoinPool(2) {
+                @Override
+                public void execute(Runnable task) {
+                    submissions.incrementAndGet();
+                    super.execute(task);
+                }
+            };
+            try {
+                coarse.delay(latch::countDown, 0, MILLISECONDS, pool);
+                coarse.delay(latch::countDown, 0, MILLISECONDS, pool);
+                coarse.delay(latch::countDown, 0, MILLISECONDS, pool);
+                assertTrue(latch.await(5, SECONDS));
+                assertEquals(1, submissions.get());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        @Test
+        public void wheelSizeMustBeAPowerOfTwo() {
+            assertThrows(IllegalArgumentException.class,
+                         () -> hashedWheelTimer(Thread::new, 1, MILLISECONDS, 6));
+            assertThrows(IllegalArgumentException.class,
+                         () -> hashedWheelTimer(Thread::new, 0, MILLISECONDS, 8));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.jnape.palatable.lambda.effect.io.fiber.benchmark;
+
+import com.jnape.palatable.lambda.adt.Unit;
+import com.jnape.palatable.lambda.effect.io.fiber.Canceller;
+import com.jnape.palatable.lambda.effect.io.fiber.Environment;
+import com.jnape.palatable.lambda.effect.io.fiber.Fiber;
+import com.jnape.palatable.lambda.effect.io.fiber.Result;
+import com.jnape.palatable.lambda.effect.io.fiber.Runtime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.fiber;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.forever;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.zip;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.Result.cancellation;
+import static com.jnape.palatable.lambda.effect.io.fiber.Result.success;
+import static com.jnape.palatable.lambda.effect.io.fiber.benchmark.Benchmark.runBenchmarks;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings.DEFAULT;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+public class AllocationBenchmark {
+
+    private static final int    ITERATIONS_PER_BENCHMARK = 10_000_000;
+    private static final double BYTES_PER_OP_BUDGET      = 1.0;
+    private static final double ZIP_BYTES_PER_OP_BUDGET  = 800.0;
+
+    public static void main(String[] args) throws RunnerException {
+        for (RunResult runResult : runBenchmarks(AllocationBenchmark.class, GCProfiler.class)) {
+            double allocated = runResult.getSecondaryResults().get("gc.alloc.rate.norm").getScore();
+            String benchmark = runResult.getParams().getBenchmark();
+            double budget    = benchmark.contains(".Zip.") ? ZIP_BYTES_PER_OP_BUDGET : BYTES_PER_OP_BUDGET;
+            if (allocated > budget)
+                throw new AssertionError(benchmark + " allocated " + allocated
+                                                 + " bytes/op, exceeding budget of " + budget);
+            System.out.println(benchmark + " allocated " + allocated + " bytes/op");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RuntimeState {
+
+        private long                       counter;
+        private Runtime                    runtime;
+        private Fiber<Unit>                fiber;
+        private AtomicReference<Result<?>> result;
+
+        @Setup(Invocation)
+        public void setup() {
+            Executor trampoline = new Trampoline();
+            counter = 0;
+            result  = new AtomicReference<>();
+            runtime = fiberRunLoop(new Environment((r, d, tu) -> () -> {}, trampoline, trampoline,
+                                                   Canceller::canceller), DEFAULT);
+            fiber = forever(Fiber.<Unit>fiber(k -> k.accept(counter++ >= ITERATIONS_PER_BENCHMARK
+                                                             ? cancellation()
+                                                             : success()))
+                                    .bind(Fiber::succeeded)
+                                    .bind(__ -> succeeded()));
+        }
+
+        public Object run() {
+            runtime.schedule(fiber, result::set);
+            return result.get();
+        }
+    }
+
+    @BenchmarkMode(Throughput)
+    @OutputTimeUnit(MICROSECONDS)
+    public static class ValueSuspensionBind {
+
+        @Benchmark
+        @OperationsPerInvocation(ITERATIONS_PER_BENCHMARK)
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            bh.consume(rs.run());
+        }
+    }
+
+    // A whole zip of two suspensions per op, from building it to its callback, on the same trampoline; unlike the loop
+    // above, this can't be allocation-free, so its budget pins down what one zip costs
+    @State(Scope.Thread)
+    public static class ZipState {
+
+        private Runtime                    runtime;
+        private Fiber<Integer>             a;
+        private Fiber<Integer>             b;
+        private AtomicReference<Result<?>> result;
+
+        @Setup(Trial)
+        public void setup() {
+            Executor trampoline = new Trampoline();
+            result  = new AtomicReference<>();
+            runtime = fiberRunLoop(new Environment((r, d, tu) -> () -> {}, trampoline, trampoline,
+                                                   Canceller::canceller), DEFAULT);
+            a       = fiber(() -> 1);
+            b       = fiber(() -> 2);
+        }
+
+        public Object run() {
+            runtime.schedule(zip(a, b, Integer::sum), result::set);
+            return result.get();
+        }
+    }
+
+    @BenchmarkMode(Throughput)
+    @OutputTimeUnit(MICROSECONDS)
+    public static class Zip {
+
+        @Benchmark
+        public void benchmark(ZipState zs, Blackhole bh) {
+            bh.consume(zs.run());
+        }
+    }
+
+    private static final class Trampoline implements Executor {
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+
+        private boolean running;
+
+        @Override
+        public void execute(Runnable runnable) {
+            queue.add(runnable);
+            if (!running) {
+                running = true;
+                try {
+                    Runnable next;
+                    while ((next = queue.poll()) != null)
+                        next.run();
+                } finally {
+                    running = false;
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.jnape.palatable.lambda.effect.io.fiber.benchmark;
 
+import org.openjdk.jmh.profile.Profiler;
+import org.openjdk.jmh.results.RunResult;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -8,6 +10,7 @@ import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import java.io.File;
+import java.util.Collection;
 
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Filter.filter;
 import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
@@ -23,11 +26,20 @@ public final class Benchmark {
     private static final String RESULTS_DIR_NAME  = "results";
 
     public static void runBenchmarks(Class<?> benchmarkClass, String... methods) throws RunnerException {
-        new Runner(options(benchmarkClass, methods)).run();
+        new Runner(options(benchmarkClass, new OptionsBuilder(), methods)).run();
     }
 
-    private static Options options(Class<?> benchmarkClass, String[] methods) {
-        ChainedOptionsBuilder optionsBuilder = new OptionsBuilder()
+    public static Collection<RunResult> runBenchmarks(Class<?> benchmarkClass, Class<? extends Profiler> profiler,
+                                                      String... methods) throws RunnerException {
+        return new Runner(options(benchmarkClass, new OptionsBuilder().addProfiler(profiler), methods)).run();
+    }
+
+    public static void runBenchmarksWithJvmArgs(Class<?> benchmarkClass, String... jvmArgs) throws RunnerException {
+        new Runner(options(benchmarkClass, new OptionsBuilder().jvmArgsAppend(jvmArgs), new String[0])).run();
+    }
+
+    private static Options options(Class<?> benchmarkClass, ChainedOptionsBuilder builder, String[] methods) {
+        ChainedOptionsBuilder optionsBuilder = builder
                 .resultFormat(ResultFormatType.JSON)
                 .result(resultsFilePath(benchmarkClass));
 
@@ -0,0 +1,101 @@
+package com.jnape.palatable.lambda.effect.io.fiber.benchmark;
+
+import com.jnape.palatable.lambda.effect.io.fiber.Canceller;
+import com.jnape.palatable.lambda.effect.io.fiber.Environment;
+import com.jnape.palatable.lambda.effect.io.fiber.Fiber;
+import com.jnape.palatable.lambda.effect.io.fiber.Result;
+import com.jnape.palatable.lambda.effect.io.fiber.Runtime;
+import com.jnape.palatable.lambda.effect.io.fiber.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.Timer.timer;
+import static com.jnape.palatable.lambda.effect.io.fiber.benchmark.Benchmark.runBenchmarks;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings.DEFAULT;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+public class BindBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        runBenchmarks(BindBenchmark.class);
+    }
+
+    @State(Scope.Thread)
+    public static class RuntimeState {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        int binds;
+
+        private Runtime                  runtime;
+        private ExecutorService          executorService;
+        private ScheduledExecutorService scheduledExecutorService;
+
+        @Setup(Trial)
+        public void setup() {
+            executorService          = newSingleThreadExecutor();
+            scheduledExecutorService = newSingleThreadScheduledExecutor();
+            Timer timer = timer(scheduledExecutorService, false);
+            runtime = fiberRunLoop(new Environment(timer, executorService, executorService, Canceller::canceller), DEFAULT);
+        }
+
+        @TearDown(Trial)
+        public void tearDown() {
+            executorService.shutdownNow();
+            scheduledExecutorService.shutdownNow();
+        }
+
+        public Result<Integer> run(Fiber<Integer> fiber) {
+            CompletableFuture<Result<Integer>> future = new CompletableFuture<>();
+            runtime.schedule(fiber, future::complete);
+            return future.join();
+        }
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class LeftAssociated {
+
+        @Benchmark
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            Fiber<Integer> fiber = succeeded(0);
+            for (int i = 0; i < rs.binds; i++) {
+                fiber = fiber.bind(x -> succeeded(x + 1));
+            }
+            bh.consume(rs.run(fiber));
+        }
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class RightAssociated {
+
+        @Benchmark
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            bh.consume(rs.run(rightAssociated(0, rs.binds)));
+        }
+
+        private static Fiber<Integer> rightAssociated(int i, int binds) {
+            return i == binds
+                   ? succeeded(0)
+                   : succeeded(1).bind(x -> rightAssociated(i + 1, binds).bind(y -> succeeded(x + y)));
+        }
+    }
+}
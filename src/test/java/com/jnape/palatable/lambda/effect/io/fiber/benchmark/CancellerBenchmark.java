@@ -0,0 +1,170 @@
+package com.jnape.palatable.lambda.effect.io.fiber.benchmark;
+
+import com.jnape.palatable.lambda.effect.io.fiber.Canceller;
+import com.jnape.palatable.lambda.effect.io.fiber.Environment;
+import com.jnape.palatable.lambda.effect.io.fiber.Fiber;
+import com.jnape.palatable.lambda.effect.io.fiber.Result;
+import com.jnape.palatable.lambda.effect.io.fiber.Runtime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Canceller.canceller;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.Timer.timer;
+import static com.jnape.palatable.lambda.effect.io.fiber.benchmark.Benchmark.runBenchmarks;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings.DEFAULT;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+public class CancellerBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        runBenchmarks(CancellerBenchmark.class);
+    }
+
+    @State(Scope.Thread)
+    public static class SiblingsState {
+
+        @Param({"100000"})
+        int siblings;
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class Siblings {
+
+        @Benchmark
+        public Canceller registerThenRemoveInOrder(SiblingsState s) {
+            Canceller   parent   = canceller();
+            Canceller[] children = new Canceller[s.siblings];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = parent.addChild();
+            }
+            for (Canceller child : children) {
+                parent.removeChild(child);
+            }
+            return parent;
+        }
+
+        @Benchmark
+        public Canceller registerThenRemoveNewestFirst(SiblingsState s) {
+            Canceller   parent   = canceller();
+            Canceller[] children = new Canceller[s.siblings];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = parent.addChild();
+            }
+            for (int i = children.length - 1; i >= 0; i--) {
+                parent.removeChild(children[i]);
+            }
+            return parent;
+        }
+
+        @Benchmark
+        public Canceller registerThenDeregisterCallbacks(SiblingsState s) {
+            Canceller parent = canceller();
+            for (int i = 0; i < s.siblings; i++) {
+                parent.onCancellation(() -> {}).orElseThrow(IllegalStateException::new).run();
+            }
+            return parent;
+        }
+
+        @Benchmark
+        public Canceller registerThenCancel(SiblingsState s) {
+            Canceller parent = canceller();
+            for (int i = 0; i < s.siblings; i++) {
+                parent.addChild();
+                parent.onCancellation(() -> {});
+            }
+            parent.cancel();
+            return parent;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HotParentState {
+        Canceller parent;
+
+        @Setup(Trial)
+        public void setup() {
+            parent = canceller();
+        }
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(NANOSECONDS)
+    @Threads(4)
+    public static class HotParent {
+
+        @Benchmark
+        public Canceller addThenRemoveChild(HotParentState s) {
+            Canceller child = s.parent.addChild();
+            s.parent.removeChild(child);
+            return child;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ParallelState {
+
+        @Param({"100000"})
+        int siblings;
+
+        private Runtime                  runtime;
+        private ExecutorService          executorService;
+        private ScheduledExecutorService scheduledExecutorService;
+        private List<Fiber<Integer>>     fibers;
+
+        @Setup(Trial)
+        public void setup() {
+            executorService          = newFixedThreadPool(4);
+            scheduledExecutorService = newSingleThreadScheduledExecutor();
+            runtime                  = fiberRunLoop(new Environment(timer(scheduledExecutorService, false),
+                                                                    executorService,
+                                                                    executorService,
+                                                                    Canceller::canceller),
+                                                    DEFAULT);
+            fibers                   = new ArrayList<>(siblings);
+            for (int i = 0; i < siblings; i++) {
+                fibers.add(succeeded(i));
+            }
+        }
+
+        @TearDown(Trial)
+        public void tearDown() {
+            executorService.shutdownNow();
+            scheduledExecutorService.shutdownNow();
+        }
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class BigParallel {
+
+        @Benchmark
+        public void benchmark(ParallelState s, Blackhole bh) {
+            CompletableFuture<Result<List<Integer>>> future = new CompletableFuture<>();
+            s.runtime.schedule(Fiber.parallel(s.fibers), future::complete);
+            bh.consume(future.join());
+        }
+    }
+}
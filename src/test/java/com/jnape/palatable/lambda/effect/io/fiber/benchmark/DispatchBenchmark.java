@@ -0,0 +1,157 @@
+package com.jnape.palatable.lambda.effect.io.fiber.benchmark;
+
+import com.jnape.palatable.lambda.effect.io.fiber.Canceller;
+import com.jnape.palatable.lambda.effect.io.fiber.Environment;
+import com.jnape.palatable.lambda.effect.io.fiber.Fiber;
+import com.jnape.palatable.lambda.effect.io.fiber.Result;
+import com.jnape.palatable.lambda.effect.io.fiber.Runtime;
+import com.jnape.palatable.lambda.effect.io.fiber.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.blocking;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.fiber;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.parallel;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.pin;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.race;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.Timer.timer;
+import static com.jnape.palatable.lambda.effect.io.fiber.benchmark.Benchmark.runBenchmarks;
+import static com.jnape.palatable.lambda.effect.io.fiber.benchmark.Benchmark.runBenchmarksWithJvmArgs;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings.DEFAULT;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+// FiberRunLoop#tick's dispatch on the real run loop, meant to be run on both sides of a change to it, since it only
+// uses operators every version has. Hot binds values and suspensions only; Mixed sends every COLD_EVERY-th step
+// through one of `operators` distinct cold operator shapes, so any cost the cold path puts on the hot one shows up as a
+// gap between the two, and a dispatch that degrades as operator cases are added shows up as Mixed falling off along
+// the operators axis. A shape is a nesting of the cold operators that resolve in place on a single executor (a pin
+// onto the executor the fiber is already on, a blocking section when the blocking executor is that same executor, and
+// a race or parallel of branches that finish synchronously). Every shape nests SHAPE_DEPTH of them, and each operator
+// appears equally often at every depth across each run of COLD_KINDS shapes, so the cold work per step is the same at
+// every point on the axis and only the number of distinct shapes changes. Run main with --print-inlining to also see the compilation and inlining
+// decisions behind the numbers; each fork's log is printed under the operators value it ran with.
+public class DispatchBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        if (asList(args).contains("--print-inlining"))
+            runBenchmarksWithJvmArgs(DispatchBenchmark.class,
+                                     "-XX:+UnlockDiagnosticVMOptions", "-XX:+PrintCompilation", "-XX:+PrintInlining");
+        else
+            runBenchmarks(DispatchBenchmark.class);
+    }
+
+    private static final int STEPS       = 100_000;
+    private static final int COLD_EVERY  = 8;
+    private static final int COLD_KINDS  = 4;
+    private static final int SHAPE_DEPTH = 3;
+
+    @State(Scope.Thread)
+    public static class RuntimeState {
+
+        private Runtime                  runtime;
+        private ExecutorService          executorService;
+        private ScheduledExecutorService scheduledExecutorService;
+
+        @Setup(Trial)
+        public void setup() {
+            executorService          = newSingleThreadExecutor();
+            scheduledExecutorService = newSingleThreadScheduledExecutor();
+            Timer timer = timer(scheduledExecutorService, false);
+            runtime = fiberRunLoop(new Environment(timer, executorService, executorService, Canceller::canceller),
+                                   DEFAULT);
+        }
+
+        @TearDown(Trial)
+        public void tearDown() {
+            executorService.shutdownNow();
+            scheduledExecutorService.shutdownNow();
+        }
+
+        public Result<Integer> run(Fiber<Integer> fiber) {
+            CompletableFuture<Result<Integer>> future = new CompletableFuture<>();
+            runtime.schedule(fiber, future::complete);
+            return future.join();
+        }
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class Hot {
+
+        @Benchmark
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            Fiber<Integer> fiber = succeeded(0);
+            for (int i = 0; i < STEPS; i++) {
+                fiber = fiber.bind(x -> succeeded(x).bind(y -> fiber(() -> y + 1)));
+            }
+            bh.consume(rs.run(fiber));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdShapes {
+
+        @Param({"4", "8", "12", "16", "20", "24"})
+        public int operators;
+
+        private Executor executor;
+
+        @Setup(Trial)
+        public void setup(RuntimeState rs) {
+            executor = rs.executorService;
+        }
+
+        // Wraps fiber in the operators at the running sums of shape's base-COLD_KINDS digits, innermost first, which
+        // keeps shapes distinct while rotating every operator through every depth
+        public Fiber<Integer> shape(int shape, Fiber<Integer> fiber) {
+            int kind = 0;
+            for (int depth = 0, s = shape; depth < SHAPE_DEPTH; depth++, s /= COLD_KINDS) {
+                kind = (kind + s) % COLD_KINDS;
+                fiber = switch (kind) {
+                    case 0 -> pin(fiber, executor);
+                    case 1 -> blocking(fiber);
+                    case 2 -> race(fiber, fiber);
+                    default -> parallel(fiber, fiber).bind(xs -> succeeded(xs.get(0)));
+                };
+            }
+            return fiber;
+        }
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class Mixed {
+
+        @Benchmark
+        public void benchmark(RuntimeState rs, ColdShapes cs, Blackhole bh) {
+            Fiber<Integer> fiber = succeeded(0);
+            for (int i = 0; i < STEPS; i++) {
+                int shape = i / COLD_EVERY % cs.operators;
+                fiber = i % COLD_EVERY == 0
+                        ? fiber.bind(x -> cs.shape(shape, succeeded(x)).bind(y -> fiber(() -> y + 1)))
+                        : fiber.bind(x -> succeeded(x).bind(y -> fiber(() -> y + 1)));
+            }
+            bh.consume(rs.run(fiber));
+        }
+    }
+}
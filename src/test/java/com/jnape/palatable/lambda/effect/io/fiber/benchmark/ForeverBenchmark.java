@@ -11,6 +11,7 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -18,12 +19,18 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.Blackhole;
 import org.openjdk.jmh.runner.RunnerException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.blocking;
 import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.forever;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.parallel;
 import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberScheduler.fiberScheduler;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.cancellation;
 import static com.jnape.palatable.lambda.effect.io.fiber.Result.success;
 import static com.jnape.palatable.lambda.effect.io.fiber.Timer.timer;
@@ -39,6 +46,7 @@ import static java.util.concurrent.Executors.newWorkStealingPool;
 import static java.util.concurrent.ForkJoinPool.commonPool;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Mode.Throughput;
 
@@ -48,31 +56,42 @@ public class ForeverBenchmark {
         runBenchmarks(ForeverBenchmark.class);
     }
 
+    private static final int  BLOCKING_FIBERS = 1_000;
+    private static final long BLOCKING_NANOS  = 100_000;
+
     static abstract class RuntimeState {
 
         private long                            counter;
         private Runtime                         runtime;
         private ExecutorService                 executorService;
+        private ExecutorService                 blockingExecutorService;
         private ScheduledExecutorService        scheduledExecutorService;
         private CompletableFuture<Result<Long>> future;
 
         abstract ExecutorService newExecutorService();
 
+        ExecutorService newBlockingExecutorService(ExecutorService executorService) {
+            return newCachedThreadPool();
+        }
+
         @Setup(Invocation)
         public void setup() {
             future                   = new CompletableFuture<>();
             counter                  = 0;
             executorService          = newExecutorService();
+            blockingExecutorService  = newBlockingExecutorService(executorService);
             scheduledExecutorService = newSingleThreadScheduledExecutor();
             Timer timer = timer(scheduledExecutorService, false);
             executorService.execute(() -> {});
             timer.delay(() -> {}, 1, MILLISECONDS);
-            runtime = fiberRunLoop(new Environment(timer, executorService, executorService, Canceller::canceller), DEFAULT);
+            runtime = fiberRunLoop(new Environment(timer, executorService, blockingExecutorService,
+                                                   Canceller::canceller), DEFAULT);
         }
 
         @TearDown(Invocation)
         public void tearDown() {
             executorService.shutdownNow();
+            blockingExecutorService.shutdownNow();
             scheduledExecutorService.shutdownNow();
         }
 
@@ -81,6 +100,17 @@ public class ForeverBenchmark {
             return future.join();
         }
 
+        // BLOCKING_FIBERS fibers at once, each parking its thread for BLOCKING_NANOS inside Fiber.blocking
+        public Result<List<Unit>> runBlocking() {
+            List<Fiber<Unit>> fibers = new ArrayList<>(BLOCKING_FIBERS);
+            for (int i = 0; i < BLOCKING_FIBERS; i++) {
+                fibers.add(blocking(() -> parkNanos(BLOCKING_NANOS)));
+            }
+            CompletableFuture<Result<List<Unit>>> future = new CompletableFuture<>();
+            runtime.schedule(parallel(fibers), future::complete);
+            return future.join();
+        }
+
         public Result<Unit> cancelAfter(int maxValue) {
             return counter++ >= maxValue ? cancellation() : success();
         }
@@ -190,4 +220,139 @@ public class ForeverBenchmark {
         }
 
     }
+
+    @BenchmarkMode(Throughput)
+    @OutputTimeUnit(MICROSECONDS)
+    public static class FiberScheduler {
+
+        @Benchmark
+        @OperationsPerInvocation(OPS_PER_BENCHMARK)
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            bh.consume(rs.run(forever(Fiber.<Unit>fiber(k -> k.accept(rs.cancelAfter(OPS_PER_BENCHMARK))))));
+        }
+
+        @State(Scope.Thread)
+        public static class RuntimeState extends ForeverBenchmark.RuntimeState {
+            @Override
+            ExecutorService newExecutorService() {
+                return fiberScheduler(getRuntime().availableProcessors(), "benchmark-");
+            }
+
+        }
+
+    }
+
+    // The same loop on each work-stealing candidate (and the fixed pool as a baseline), sized to each core count
+    @BenchmarkMode(Throughput)
+    @OutputTimeUnit(MICROSECONDS)
+    public static class AcrossCoreCounts {
+
+        @Benchmark
+        @OperationsPerInvocation(OPS_PER_BENCHMARK)
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            bh.consume(rs.run(forever(Fiber.<Unit>fiber(k -> k.accept(rs.cancelAfter(OPS_PER_BENCHMARK))))));
+        }
+
+        @State(Scope.Thread)
+        public static class RuntimeState extends ForeverBenchmark.RuntimeState {
+
+            @Param({"1", "2", "4", "8"})
+            int cores;
+
+            @Param({"FiberScheduler", "ForkJoinPool", "WorkStealingPool", "FixedPool"})
+            String executor;
+
+            @Override
+            ExecutorService newExecutorService() {
+                return switch (executor) {
+                    case "FiberScheduler" -> fiberScheduler(cores, "benchmark-");
+                    case "ForkJoinPool" -> new java.util.concurrent.ForkJoinPool(cores);
+                    case "WorkStealingPool" -> newWorkStealingPool(cores);
+                    case "FixedPool" -> newFixedThreadPool(cores);
+                    default -> throw new IllegalArgumentException("Unknown executor: " + executor);
+                };
+            }
+
+        }
+
+    }
+
+    @BenchmarkMode(Throughput)
+    @OutputTimeUnit(MICROSECONDS)
+    public static class VirtualThreads {
+
+        @Benchmark
+        @OperationsPerInvocation(OPS_PER_BENCHMARK)
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            bh.consume(rs.run(forever(Fiber.<Unit>fiber(k -> k.accept(rs.cancelAfter(OPS_PER_BENCHMARK))))));
+        }
+
+        @State(Scope.Thread)
+        public static class RuntimeState extends ForeverBenchmark.RuntimeState {
+            @Override
+            ExecutorService newExecutorService() {
+                return newVirtualThreadPerTaskExecutor();
+            }
+
+            @Override
+            ExecutorService newBlockingExecutorService(ExecutorService executorService) {
+                return executorService;
+            }
+        }
+
+    }
+
+    @BenchmarkMode(Throughput)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class BlockingOnForkJoinPoolAndCachedPool {
+
+        @Benchmark
+        @OperationsPerInvocation(BLOCKING_FIBERS)
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            bh.consume(rs.runBlocking());
+        }
+
+        @State(Scope.Thread)
+        public static class RuntimeState extends ForeverBenchmark.RuntimeState {
+            @Override
+            ExecutorService newExecutorService() {
+                return new java.util.concurrent.ForkJoinPool(getRuntime().availableProcessors());
+            }
+        }
+
+    }
+
+    @BenchmarkMode(Throughput)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class BlockingOnVirtualThreads {
+
+        @Benchmark
+        @OperationsPerInvocation(BLOCKING_FIBERS)
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            bh.consume(rs.runBlocking());
+        }
+
+        @State(Scope.Thread)
+        public static class RuntimeState extends ForeverBenchmark.RuntimeState {
+            @Override
+            ExecutorService newExecutorService() {
+                return newVirtualThreadPerTaskExecutor();
+            }
+
+            @Override
+            ExecutorService newBlockingExecutorService(ExecutorService executorService) {
+                return executorService;
+            }
+        }
+
+    }
+
+    // Looked up reflectively so the benchmarks still compile on 17; the virtual-thread variants need JDK 21+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later", e);
+        }
+    }
 }
@@ -0,0 +1,114 @@
+package com.jnape.palatable.lambda.effect.io.fiber.benchmark;
+
+import com.jnape.palatable.lambda.effect.io.fiber.Canceller;
+import com.jnape.palatable.lambda.effect.io.fiber.Environment;
+import com.jnape.palatable.lambda.effect.io.fiber.Fiber;
+import com.jnape.palatable.lambda.effect.io.fiber.Metrics;
+import com.jnape.palatable.lambda.effect.io.fiber.Result;
+import com.jnape.palatable.lambda.effect.io.fiber.Runtime;
+import com.jnape.palatable.lambda.effect.io.fiber.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.fiber;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.parallel;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.Metrics.countingMetrics;
+import static com.jnape.palatable.lambda.effect.io.fiber.Metrics.noMetrics;
+import static com.jnape.palatable.lambda.effect.io.fiber.Timer.timer;
+import static com.jnape.palatable.lambda.effect.io.fiber.benchmark.Benchmark.runBenchmarks;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings.DEFAULT;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.Executors.newWorkStealingPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+// The same workloads with metrics off and with the counting implementation, to keep the cost of instrumentation in
+// view: ticks are counted on the fiber and reported in batches, so the two should stay within a few percent
+public class MetricsBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        runBenchmarks(MetricsBenchmark.class);
+    }
+
+    private static final int BINDS    = 100_000;
+    private static final int BRANCHES = 1_000;
+
+    @State(Scope.Thread)
+    public static class RuntimeState {
+
+        @Param({"none", "counting"})
+        String metrics;
+
+        private Runtime                  runtime;
+        private ExecutorService          executorService;
+        private ScheduledExecutorService scheduledExecutorService;
+
+        @Setup(Trial)
+        public void setup() {
+            executorService          = newWorkStealingPool();
+            scheduledExecutorService = newSingleThreadScheduledExecutor();
+            Timer   timer   = timer(scheduledExecutorService, false);
+            Metrics metrics = this.metrics.equals("counting") ? countingMetrics() : noMetrics();
+            runtime = fiberRunLoop(new Environment(timer, executorService, executorService, Canceller::canceller)
+                                           .withMetrics(metrics), DEFAULT);
+        }
+
+        @TearDown(Trial)
+        public void tearDown() {
+            executorService.shutdownNow();
+            scheduledExecutorService.shutdownNow();
+        }
+
+        public <A> Result<A> run(Fiber<A> fiber) {
+            CompletableFuture<Result<A>> future = new CompletableFuture<>();
+            runtime.schedule(fiber, future::complete);
+            return future.join();
+        }
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class Binds {
+
+        @Benchmark
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            Fiber<Integer> fiber = succeeded(0);
+            for (int i = 0; i < BINDS; i++) {
+                fiber = fiber.bind(x -> succeeded(x).bind(y -> succeeded(y + 1)));
+            }
+            bh.consume(rs.run(fiber));
+        }
+    }
+
+    @BenchmarkMode(AverageTime)
+    @OutputTimeUnit(MILLISECONDS)
+    public static class Parallel {
+
+        @Benchmark
+        public void benchmark(RuntimeState rs, Blackhole bh) {
+            List<Fiber<Integer>> fibers = new ArrayList<>(BRANCHES);
+            for (int i = 0; i < BRANCHES; i++) {
+                int n = i;
+                fibers.add(fiber(() -> n));
+            }
+            bh.consume(rs.run(parallel(fibers)));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.jnape.palatable.lambda.effect.io.fiber.benchmark;
+
+import com.jnape.palatable.lambda.effect.io.fiber.Canceller;
+import com.jnape.palatable.lambda.effect.io.fiber.Environment;
+import com.jnape.palatable.lambda.effect.io.fiber.Fiber;
+import com.jnape.palatable.lambda.effect.io.fiber.Result;
+import com.jnape.palatable.lambda.effect.io.fiber.Runtime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.fiber;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.parallel;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.succeeded;
+import static com.jnape.palatable.lambda.effect.io.fiber.Fiber.zip;
+import static com.jnape.palatable.lambda.effect.io.fiber.FiberRunLoop.fiberRunLoop;
+import static com.jnape.palatable.lambda.effect.io.fiber.Timer.timer;
+import static com.jnape.palatable.lambda.effect.io.fiber.benchmark.Benchmark.runBenchmarks;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.RuntimeSettings.DEFAULT;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+// Small, heterogeneous fan-outs: parallel + bind versus the typed zip combinators
+@BenchmarkMode(AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+public class ZipBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        runBenchmarks(ZipBenchmark.class);
+    }
+
+    @State(Scope.Thread)
+    public static class RuntimeState {
+        private Runtime                  runtime;
+        private ForkJoinPool             executor;
+        private ScheduledExecutorService scheduledExecutorService;
+        private Fiber<Integer>           a;
+        private Fiber<Integer>           b;
+        private Fiber<Integer>           c;
+
+        @Setup(Trial)
+        public void setup() {
+            executor                 = new ForkJoinPool(4);
+            scheduledExecutorService = newSingleThreadScheduledExecutor();
+            runtime                  = fiberRunLoop(new Environment(timer(scheduledExecutorService, false),
+                                                                    executor,
+                                                                    executor,
+                                                                    Canceller::canceller),
+                                                    DEFAULT);
+            a                        = fiber(() -> 1);
+            b                        = fiber(() -> 2);
+            c                        = fiber(() -> 3);
+        }
+
+        @TearDown(Trial)
+        public void tearDown() {
+            executor.shutdownNow();
+            scheduledExecutorService.shutdownNow();
+        }
+
+        private <A> Result<A> run(Fiber<A> fiber) {
+            CompletableFuture<Result<A>> future = new CompletableFuture<>();
+            runtime.schedule(fiber, future::complete);
+            return future.join();
+        }
+    }
+
+    @Benchmark
+    public Object parallel2(RuntimeState s) {
+        return s.run(parallel(s.a, s.b).bind(xs -> succeeded(xs.get(0) + xs.get(1))));
+    }
+
+    @Benchmark
+    public Object zip2(RuntimeState s) {
+        return s.run(zip(s.a, s.b, Integer::sum));
+    }
+
+    @Benchmark
+    public Object parallel3(RuntimeState s) {
+        return s.run(parallel(s.a, s.b, s.c).bind(xs -> succeeded(xs.get(0) + xs.get(1) + xs.get(2))));
+    }
+
+    @Benchmark
+    public Object zip3(RuntimeState s) {
+        return s.run(zip(s.a, s.b, s.c, (x, y, z) -> x + y + z));
+    }
+}
@@ -2,8 +2,13 @@ package com.jnape.palatable.lambda.effect.io.fiber.settings;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.DEFAULT;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.EventLoop.FIBER_SCHEDULER;
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.System.load;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.TimerStrategy.HASHED_WHEEL;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.EnvironmentSettings.VirtualThreads.BLOCKING;
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.testsupport.EnvironmentStub.withEnvironment;
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.testsupport.PropertiesStub.withProperties;
 import static java.util.Collections.emptyMap;
@@ -18,11 +23,66 @@ public class EnvironmentSettingsTest {
                 assertEquals(DEFAULT, load())));
     }
 
+    @Test
+    public void originalConstructorDefaultsTheRest() {
+        assertEquals(new EnvironmentSettings(true, DEFAULT.timerStrategy(), DEFAULT.timerTickMicros(),
+                                             DEFAULT.timerSlackMicros(), DEFAULT.virtualThreads(), DEFAULT.eventLoop()),
+                     new EnvironmentSettings(true));
+    }
+
     @Test
     public void loadsFromSystem() {
+        EnvironmentSettings expected = new EnvironmentSettings(true,
+                                                               DEFAULT.timerStrategy(),
+                                                               DEFAULT.timerTickMicros(),
+                                                               DEFAULT.timerSlackMicros(),
+                                                               DEFAULT.virtualThreads(),
+                                                               DEFAULT.eventLoop());
         withEnvironment(singletonMap("InterruptFuturesOnCancel", "true"),
-                        () -> assertEquals(new EnvironmentSettings(true), load()));
+                        () -> assertEquals(expected, load()));
         withProperties(singletonMap("InterruptFuturesOnCancel", "true"),
-                       () -> assertEquals(new EnvironmentSettings(true), load()));
+                       () -> assertEquals(expected, load()));
+    }
+
+    @Test
+    public void loadsTimerSettings() {
+        EnvironmentSettings expected = new EnvironmentSettings(DEFAULT.interruptFuturesOnCancel(), HASHED_WHEEL, 250, 500,
+                                                               DEFAULT.virtualThreads(), DEFAULT.eventLoop());
+        withEnvironment(Map.of("TimerStrategy", "hashed_wheel", "TimerTickMicros", "250", "TimerSlackMicros", "500"),
+                        () -> assertEquals(expected, load()));
+        withProperties(Map.of("TimerStrategy", "HASHED_WHEEL", "TimerTickMicros", "250", "TimerSlackMicros", "500"),
+                       () -> assertEquals(expected, load()));
+    }
+
+    @Test
+    public void loadsVirtualThreads() {
+        EnvironmentSettings expected = new EnvironmentSettings(DEFAULT.interruptFuturesOnCancel(),
+                                                               DEFAULT.timerStrategy(),
+                                                               DEFAULT.timerTickMicros(),
+                                                               DEFAULT.timerSlackMicros(),
+                                                               BLOCKING,
+                                                               DEFAULT.eventLoop());
+        withEnvironment(singletonMap("VirtualThreads", "blocking"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("VirtualThreads", "BLOCKING"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("VirtualThreads", "green"), () -> assertEquals(DEFAULT, load()));
+    }
+
+    @Test
+    public void loadsEventLoop() {
+        EnvironmentSettings expected = new EnvironmentSettings(DEFAULT.interruptFuturesOnCancel(),
+                                                               DEFAULT.timerStrategy(),
+                                                               DEFAULT.timerTickMicros(),
+                                                               DEFAULT.timerSlackMicros(),
+                                                               DEFAULT.virtualThreads(),
+                                                               FIBER_SCHEDULER);
+        withEnvironment(singletonMap("EventLoop", "fiber_scheduler"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("EventLoop", "FIBER_SCHEDULER"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("EventLoop", "round_robin"), () -> assertEquals(DEFAULT, load()));
+    }
+
+    @Test
+    public void invalidTimerSettingsFallBackToDefaults() {
+        withProperties(Map.of("TimerStrategy", "sundial", "TimerTickMicros", "0", "TimerSlackMicros", "-1"),
+                       () -> assertEquals(DEFAULT, load()));
     }
 }
\ No newline at end of file
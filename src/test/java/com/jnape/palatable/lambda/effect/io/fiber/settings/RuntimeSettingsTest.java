@@ -18,12 +18,27 @@ public class RuntimeSettingsTest {
                 assertEquals(DEFAULT, load())));
     }
 
+    @Test
+    public void originalConstructorDefaultsTheRest() {
+        assertEquals(DEFAULT.withMaxTicksBeforePreemption(10), new RuntimeSettings(10));
+    }
+
+    @Test
+    public void withersReplaceOnlyTheirOwnSetting() {
+        assertEquals(new RuntimeSettings(1, 2, true, true, 3, 4),
+                     DEFAULT.withMaxTicksBeforePreemption(1)
+                             .withCancellationCheckInterval(2)
+                             .withRunSyncOnCallerThread(true)
+                             .withTreatThunksAsBlocking(true)
+                             .withTimeSliceMicros(3)
+                             .withTraceSampleRate(4));
+    }
+
     @Test
     public void loadsFromSystem() {
-        withEnvironment(singletonMap("MaxTicksBeforePreemption", "10"),
-                        () -> assertEquals(new RuntimeSettings(10), load()));
-        withProperties(singletonMap("MaxTicksBeforePreemption", "10"),
-                       () -> assertEquals(new RuntimeSettings(10), load()));
+        RuntimeSettings expected = DEFAULT.withMaxTicksBeforePreemption(10);
+        withEnvironment(singletonMap("MaxTicksBeforePreemption", "10"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("MaxTicksBeforePreemption", "10"), () -> assertEquals(expected, load()));
     }
 
     @Test
@@ -33,4 +48,49 @@ public class RuntimeSettingsTest {
         withProperties(singletonMap("MaxTicksBeforePreemption", "0"),
                        () -> assertEquals(DEFAULT, load()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void loadsCancellationCheckIntervalFromSystem() {
+        RuntimeSettings expected = DEFAULT.withCancellationCheckInterval(64);
+        withEnvironment(singletonMap("CancellationCheckInterval", "64"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("CancellationCheckInterval", "64"), () -> assertEquals(expected, load()));
+    }
+
+    @Test
+    public void nonPositiveCancellationCheckIntervalIsInvalid() {
+        withEnvironment(singletonMap("CancellationCheckInterval", "0"),
+                        () -> assertEquals(DEFAULT, load()));
+        withProperties(singletonMap("CancellationCheckInterval", "0"),
+                       () -> assertEquals(DEFAULT, load()));
+    }
+
+    @Test
+    public void loadsRunSyncOnCallerThreadFromSystem() {
+        RuntimeSettings expected = DEFAULT.withRunSyncOnCallerThread(true);
+        withEnvironment(singletonMap("RunSyncOnCallerThread", "true"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("RunSyncOnCallerThread", "true"), () -> assertEquals(expected, load()));
+    }
+
+    @Test
+    public void loadsTreatThunksAsBlockingFromSystem() {
+        RuntimeSettings expected = DEFAULT.withTreatThunksAsBlocking(true);
+        withEnvironment(singletonMap("TreatThunksAsBlocking", "true"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("TreatThunksAsBlocking", "true"), () -> assertEquals(expected, load()));
+    }
+
+    @Test
+    public void loadsTimeSliceMicrosFromSystem() {
+        RuntimeSettings expected = DEFAULT.withTimeSliceMicros(500);
+        withEnvironment(singletonMap("TimeSliceMicros", "500"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("TimeSliceMicros", "500"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("TimeSliceMicros", "-1"), () -> assertEquals(DEFAULT, load()));
+    }
+
+    @Test
+    public void loadsTraceSampleRateFromSystem() {
+        RuntimeSettings expected = DEFAULT.withTraceSampleRate(100);
+        withEnvironment(singletonMap("TraceSampleRate", "100"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("TraceSampleRate", "100"), () -> assertEquals(expected, load()));
+        withProperties(singletonMap("TraceSampleRate", "0"), () -> assertEquals(DEFAULT, load()));
+    }
+}
@@ -2,13 +2,18 @@ package com.jnape.palatable.lambda.effect.io.fiber.settings;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.jnape.palatable.lambda.adt.Maybe.just;
 import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.Settings.loadBoolean;
+import static com.jnape.palatable.lambda.effect.io.fiber.settings.Settings.loadEnum;
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.Settings.loadInteger;
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.testsupport.EnvironmentStub.withEnvironment;
 import static com.jnape.palatable.lambda.effect.io.fiber.settings.testsupport.PropertiesStub.withProperties;
 import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class SettingsTest {
@@ -65,4 +70,14 @@ public class SettingsTest {
         withProperties(singletonMap("property", "tRuE"), () -> assertEquals(just(true), loadBoolean("property")));
         withProperties(singletonMap("property", "FaLsE"), () -> assertEquals(just(false), loadBoolean("property")));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void enumsAreCaseInsensitive() {
+        withProperties(singletonMap("property", "seCONDs"), () -> assertEquals(just(SECONDS),
+                                                                               loadEnum(TimeUnit.class, "property")));
+        withEnvironment(singletonMap("variable", "days"), () -> assertEquals(just(DAYS),
+                                                                             loadEnum(TimeUnit.class, "variable")));
+        withProperties(singletonMap("invalid", "fortnights"), () -> assertEquals(nothing(),
+                                                                                 loadEnum(TimeUnit.class, "invalid")));
+    }
+}